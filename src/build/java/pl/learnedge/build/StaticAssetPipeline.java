@@ -0,0 +1,95 @@
+package pl.learnedge.build;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Etap budowania zasobów statycznych, uruchamiany przez Maven (exec:exec w fazie process-classes,
+// `java StaticAssetPipeline.java`) na skopiowanym katalogu target/classes/static. Leży poza src/main,
+// więc nie trafia do jara aplikacji:
+//  1. skleja skrypty strony lekcji w jeden plik,
+//  2. zapisuje obok plików tekstowych skompresowane warianty .gz (serwowane przez EncodedResourceResolver).
+// Odciski treści w nazwach plików nadaje w locie VersionResourceResolver (spring.web.resources.chain w application.yml).
+// Bez tego kroku (np. uruchomienie z IDE) strona lekcji ładuje skrypty osobno (patrz StaticAssets).
+public final class StaticAssetPipeline {
+
+    private static final System.Logger log = System.getLogger(StaticAssetPipeline.class.getName());
+
+    private static final Map<String, List<String>> BUNDLES = Map.of(
+            "js/lesson-bundle.js", List.of("js/lesson.js", "js/interaction.js")
+    );
+
+    private static final Set<String> COMPRESSIBLE = Set.of("js", "css", "svg", "html", "json", "txt", "ico");
+    private static final int MIN_COMPRESS_BYTES = 256;
+
+    private StaticAssetPipeline() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path staticDir = Paths.get(args.length > 0 ? args[0] : "target/classes/static");
+        if (!Files.isDirectory(staticDir)) {
+            throw new IllegalArgumentException("Brak katalogu zasobów statycznych: " + staticDir.toAbsolutePath());
+        }
+
+        for (Map.Entry<String, List<String>> bundle : BUNDLES.entrySet()) {
+            writeBundle(staticDir, bundle.getKey(), bundle.getValue());
+        }
+
+        int compressed = 0;
+        try (Stream<Path> files = Files.walk(staticDir)) {
+            for (Path file : files.filter(Files::isRegularFile).filter(StaticAssetPipeline::isCompressible).toList()) {
+                if (compress(file)) compressed++;
+            }
+        }
+        log.log(System.Logger.Level.INFO, "Static assets: {0} bundle(s), {1} gzip variant(s) in {2}",
+                BUNDLES.size(), compressed, staticDir);
+    }
+
+    private static void writeBundle(Path staticDir, String target, List<String> sources) throws IOException {
+        StringBuilder bundle = new StringBuilder();
+        for (String source : sources) {
+            bundle.append("/* ").append(source).append(" */\n")
+                    .append(Files.readString(staticDir.resolve(source), StandardCharsets.UTF_8))
+                    .append("\n;\n");
+        }
+        Files.writeString(staticDir.resolve(target), bundle, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isCompressible(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && COMPRESSIBLE.contains(name.substring(dot + 1).toLowerCase());
+    }
+
+    // Zapisuje plik.gz tylko gdy kompresja faktycznie zmniejsza rozmiar
+    private static boolean compress(Path file) throws IOException {
+        byte[] original = Files.readAllBytes(file);
+        if (original.length < MIN_COMPRESS_BYTES) return false;
+
+        Path target = file.resolveSibling(file.getFileName() + ".gz");
+        try (OutputStream out = new BestGzipOutputStream(Files.newOutputStream(target))) {
+            out.write(original);
+        }
+        if (Files.size(target) >= original.length) {
+            Files.delete(target);
+            return false;
+        }
+        return true;
+    }
+
+    private static final class BestGzipOutputStream extends GZIPOutputStream {
+        private BestGzipOutputStream(OutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
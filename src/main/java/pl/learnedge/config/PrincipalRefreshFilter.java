@@ -0,0 +1,76 @@
+package pl.learnedge.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import pl.learnedge.dto.UserPrincipal;
+import pl.learnedge.model.User;
+import pl.learnedge.repository.UserRepository;
+import pl.learnedge.service.AuthService;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+
+// Podmienia UserPrincipal z sesji, gdy konto zapisano po jego utworzeniu (users.version): zmiany admina,
+// zmiany z innych sesji tego użytkownika i z innych węzłów. Wersja sprawdzana jest jednym zapytaniem po kluczu
+// najwyżej raz na app.security.principal-check-interval dla sesji (czas sprawdzenia trzymany w atrybucie
+// CHECKED_AT), więc taka zmiana dociera do sesji z takim opóźnieniem. Usunięte lub zablokowane konto
+// jest wylogowywane.
+// Działa w łańcuchu Spring Security zaraz po odczycie kontekstu, przed sprawdzeniem uprawnień.
+public class PrincipalRefreshFilter extends OncePerRequestFilter {
+
+    static final String CHECKED_AT = PrincipalRefreshFilter.class.getName() + ".CHECKED_AT";
+
+    private final UserRepository userRepository;
+    private final AuthService authService;
+    private final long checkIntervalMillis;
+
+    public PrincipalRefreshFilter(UserRepository userRepository, AuthService authService, Duration checkInterval) {
+        this.userRepository = userRepository;
+        this.authService = authService;
+        this.checkIntervalMillis = checkInterval.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                && checkDue(request)) {
+            Long version = userRepository.findVersionById(principal.id()).orElse(null);
+            if (!Objects.equals(version, principal.version())) {
+                refresh(principal, request);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    // Zapisuje czas sprawdzenia w sesji, gdy minął interwał; bez sesji sprawdza przy każdym żądaniu
+    private boolean checkDue(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null) return true;
+        long now = System.currentTimeMillis();
+        if (session.getAttribute(CHECKED_AT) instanceof Long checkedAt && now - checkedAt < checkIntervalMillis) {
+            return false;
+        }
+        session.setAttribute(CHECKED_AT, now);
+        return true;
+    }
+
+    private void refresh(UserPrincipal principal, HttpServletRequest request) {
+        User user = userRepository.findById(principal.id()).filter(User::isEnabled).orElse(null);
+        if (user != null) {
+            authService.refreshPrincipal(user);
+            return;
+        }
+        SecurityContextHolder.clearContext();
+        HttpSession session = request.getSession(false);
+        if (session != null) session.invalidate();
+    }
+}
@@ -0,0 +1,132 @@
+package pl.learnedge.config;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UrlPathHelper;
+import pl.learnedge.service.RateLimiter;
+import pl.learnedge.service.RateLimiter.Limit;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Limity żądań POST dla logowania, rejestracji, resetu i zmiany hasła (app.rate-limit w application.yml):
+// osobno na adres IP i na konto (login / e-mail z formularza, zalogowany użytkownik przy zmianie hasła).
+// Przy logowaniu limit konta liczy tylko nieudane próby (loginFailed), więc udane logowania
+// właściciela go nie zużywają. Adres IP to getRemoteAddr(): za proxy podstawia go Tomcat
+// z X-Forwarded-For tylko od zaufanych adresów (server.forward-headers-strategy, server.tomcat.remoteip).
+// Po przekroczeniu: 429 z Retry-After. Działa w łańcuchu Spring Security przed CsrfFilter,
+// więc odrzucone żądanie nie dochodzi do BCrypt ani do wysyłki e-maila.
+// Reguły dopasowywane są do zdekodowanej ścieżki w aplikacji (bez kontekstu i ";..."), tak jak robi to
+// Spring Security i MVC - inaczej /%6Cogin ominąłby limit, a nadal trafił do logowania.
+// Pozostałe żądania kosztują tylko porównanie metody (POST: jeszcze dekodowanie i wyszukanie ścieżki).
+@Component
+public class RateLimitFilter implements Filter {
+
+    private record Rule(String name, Limit perIp, Limit perAccount, boolean accountFailuresOnly,
+                        Function<HttpServletRequest, String> account) {
+    }
+
+    private static final String LOGIN_PATH = "/login";
+
+    private static final UrlPathHelper PATHS = new UrlPathHelper();
+
+    private final RateLimiter rateLimiter;
+    private final boolean enabled;
+    private final Map<String, Rule> rules = new HashMap<>();
+
+    public RateLimitFilter(RateLimiter rateLimiter,
+                           @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.login.per-ip:20/PT1M}") String loginPerIp,
+                           @Value("${app.rate-limit.login.per-account:10/PT5M}") String loginPerAccount,
+                           @Value("${app.rate-limit.register.per-ip:5/PT1H}") String registerPerIp,
+                           @Value("${app.rate-limit.password-reset.per-ip:5/PT1H}") String resetPerIp,
+                           @Value("${app.rate-limit.password-reset.per-account:3/PT1H}") String resetPerAccount,
+                           @Value("${app.rate-limit.change-password.per-ip:10/PT5M}") String changePerIp,
+                           @Value("${app.rate-limit.change-password.per-account:5/PT15M}") String changePerAccount) {
+        this.rateLimiter = rateLimiter;
+        this.enabled = enabled;
+        addRule(LOGIN_PATH, "login", loginPerIp, loginPerAccount, true, request -> request.getParameter("username"));
+        addRule("/rejestracja", "register", registerPerIp, null, false, request -> null);
+        addRule("/przypomnij-haslo", "password-reset", resetPerIp, resetPerAccount, false,
+                request -> request.getParameter("email"));
+        addRule("/api/profile/change-password", "change-password", changePerIp, changePerAccount, false,
+                RateLimitFilter::authenticatedName);
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        Rule rule = enabled && "POST".equals(request.getMethod())
+                ? rules.get(PATHS.getPathWithinApplication(request)) : null;
+        if (rule != null) {
+            long wait = acquire(rule, request);
+            if (wait > 0) {
+                HttpServletResponse response = (HttpServletResponse) res;
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(wait) + 1));
+                response.sendError(429, "Zbyt wiele prób. Spróbuj ponownie później.");
+                return;
+            }
+        }
+        chain.doFilter(req, res);
+    }
+
+    // Nieudane logowanie formularzem (SecurityConfig) zużywa żeton konta.
+    // Równoległe próby mogą przejść sprawdzenie, zanim zostaną policzone - ogranicza je limit na IP
+    public void loginFailed(HttpServletRequest request) {
+        Rule rule = rules.get(LOGIN_PATH);
+        if (!enabled || rule == null || rule.perAccount() == null) return;
+        String key = accountKey(rule, request);
+        if (key != null) rateLimiter.tryAcquire(key, rule.perAccount());
+    }
+
+    // Żeton na IP pobierany przed żetonem konta, żeby zgadywanie loginów z jednego adresu nie blokowało kont
+    private long acquire(Rule rule, HttpServletRequest request) {
+        if (rule.perIp() != null) {
+            long wait = rateLimiter.tryAcquire(rule.name() + "|ip|" + request.getRemoteAddr(), rule.perIp());
+            if (wait > 0) return wait;
+        }
+        if (rule.perAccount() != null) {
+            String key = accountKey(rule, request);
+            if (key != null) {
+                return rule.accountFailuresOnly()
+                        ? rateLimiter.waitTime(key, rule.perAccount())
+                        : rateLimiter.tryAcquire(key, rule.perAccount());
+            }
+        }
+        return 0;
+    }
+
+    private static String accountKey(Rule rule, HttpServletRequest request) {
+        String account = rule.account().apply(request);
+        if (account == null || account.isBlank()) return null;
+        return rule.name() + "|account|" + account.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void addRule(String path, String name, String perIp, String perAccount, boolean accountFailuresOnly,
+                         Function<HttpServletRequest, String> account) {
+        Limit ipLimit = Limit.parse(perIp);
+        Limit accountLimit = Limit.parse(perAccount);
+        if (ipLimit != null || accountLimit != null) {
+            rules.put(path, new Rule(name, ipLimit, accountLimit, accountFailuresOnly, account));
+        }
+    }
+
+    private static String authenticatedName(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
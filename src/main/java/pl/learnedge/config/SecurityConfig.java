@@ -1,26 +1,41 @@
 package pl.learnedge.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
 import lombok.extern.slf4j.Slf4j;
+import pl.learnedge.dto.UserPrincipal;
+import pl.learnedge.exception.PasswordHashingBusyException;
+import pl.learnedge.model.User;
+import pl.learnedge.repository.UserRepository;
+import pl.learnedge.service.AuthService;
+import pl.learnedge.service.UserDetailsServiceImpl;
+
+import java.time.Duration;
 
 @Configuration
 @Slf4j
 public class SecurityConfig {
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-    
     @Bean 
     public SimpleUrlAuthenticationSuccessHandler successHandler() {
         return new SimpleUrlAuthenticationSuccessHandler() {
@@ -35,9 +50,98 @@ public class SecurityConfig {
         };
     }
 
+    // Po zalogowaniu formularzem w kontekście zostaje UserPrincipal, a nie encja User z hasłem.
+    // Hasze o niższym koszcie BCrypt są przepisywane przy udanym logowaniu (UserDetailsServiceImpl.updatePassword)
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public DaoAuthenticationProvider authenticationProvider(UserDetailsServiceImpl userDetailsService,
+                                                            PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+                try {
+                    return super.authenticate(authentication);
+                } catch (PasswordHashingBusyException e) {
+                    throw new AuthenticationServiceException(e.getMessage(), e);
+                }
+            }
+
+            @Override
+            protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+                                                                 UserDetails user) {
+                return super.createSuccessAuthentication(UserPrincipal.from((User) user), authentication, user);
+            }
+        };
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        return provider;
+    }
+
+    // Przeciążone haszowanie haseł: od razu 503 zamiast powrotu na formularz.
+    // Pozostałe błędy logowania liczą się do limitu prób na konto
+    private SimpleUrlAuthenticationFailureHandler loginFailureHandler(RateLimitFilter rateLimitFilter) {
+        return new SimpleUrlAuthenticationFailureHandler("/logowanie?error=true") {
+            @Override
+            public void onAuthenticationFailure(jakarta.servlet.http.HttpServletRequest request,
+                                                jakarta.servlet.http.HttpServletResponse response,
+                                                AuthenticationException exception) throws java.io.IOException,
+                                                jakarta.servlet.ServletException {
+                if (exception.getCause() instanceof PasswordHashingBusyException busy) {
+                    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(PasswordHashingBusyException.RETRY_AFTER_SECONDS));
+                    response.sendError(jakarta.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE, busy.getMessage());
+                    return;
+                }
+                rateLimitFilter.loginFailed(request);
+                super.onAuthenticationFailure(request, response, exception);
+            }
+        };
+    }
+
+    // Logowanie przez Google: DefaultOidcUser podmieniany na UserPrincipal konta z bazy
+    private SimpleUrlAuthenticationSuccessHandler oidcSuccessHandler(AuthService authService) {
+        SimpleUrlAuthenticationSuccessHandler handler = new SimpleUrlAuthenticationSuccessHandler() {
+            @Override
+            public void onAuthenticationSuccess(jakarta.servlet.http.HttpServletRequest request,
+                                                jakarta.servlet.http.HttpServletResponse response,
+                                                Authentication authentication) throws java.io.IOException,
+                                                jakarta.servlet.ServletException {
+                if (authentication.getPrincipal() instanceof OidcUser oidcUser) {
+                    authService.signIn(oidcUser);
+                }
+                log.info("OAuth2 authentication success. User: {}", authentication.getName());
+                super.onAuthenticationSuccess(request, response, authentication);
+            }
+        };
+        handler.setDefaultTargetUrl("/panel");
+        handler.setAlwaysUseDefaultTargetUrl(true);
+        return handler;
+    }
+
+    // RateLimitFilter jako @Component zostałby zarejestrowany także jako zwykły filtr serwletów i liczył każde
+    // żądanie dwa razy. Działa tylko w łańcuchu Spring Security, po odczycie kontekstu z sesji - stąd zna
+    // użytkownika dla limitu zmiany hasła; pozostałe reguły go nie potrzebują
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    SecurityFilterChain securityFilterChain(HttpSecurity http, AuthService authService,
+                                           UserRepository userRepository,
+                                           SessionRegistry sessionRegistry,
+                                           RateLimitFilter rateLimitFilter,
+                                           @Value("${app.security.principal-check-interval:PT30S}")
+                                           Duration principalCheckInterval) throws Exception {
         http
+            // ✅ Principal z sesji odświeżany po zmianie konta (users.version)
+            .addFilterAfter(new PrincipalRefreshFilter(userRepository, authService, principalCheckInterval),
+                    SecurityContextHolderFilter.class)
+
+            // ✅ Limity prób logowania, rejestracji i resetu hasła (429)
+            .addFilterBefore(rateLimitFilter, CsrfFilter.class)
+
             // ✅ CSRF włączony, ale pomijamy H2-console i API endpoints
             .csrf(csrf -> csrf
                 .ignoringRequestMatchers("/h2-console/**", "/api/**")
@@ -84,32 +188,32 @@ public class SecurityConfig {
                 .loginProcessingUrl("/login")
                 .successHandler(successHandler())
                 .defaultSuccessUrl("/panel", true)
-                .failureUrl("/logowanie?error=true")
+                .failureHandler(loginFailureHandler(rateLimitFilter))
                 .permitAll()
             )
 
             // ✅ Logowanie przez OAuth2 (Google/GitHub)
             .oauth2Login(oauth -> oauth
                 .loginPage("/logowanie")
-                .successHandler(successHandler())
-                .defaultSuccessUrl("/panel", true)
+                .successHandler(oidcSuccessHandler(authService))
             )
 
-            // ✅ Sesje użytkowników
+            // ✅ Sesje użytkowników (w bazie, limit liczony na wszystkich węzłach - SessionConfig)
             .sessionManagement(sm -> sm
                 .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
                 .sessionFixation(sessionFixation -> sessionFixation.migrateSession())
                 .maximumSessions(3)
                 .maxSessionsPreventsLogin(false)
+                .sessionRegistry(sessionRegistry)
             )
 
-            // ✅ Wylogowanie
+            // ✅ Wylogowanie (ciasteczko sesji Spring Session nazywa się SESSION)
             .logout(logout -> logout
                 .logoutUrl("/perform-logout")
                 .logoutSuccessUrl("/logowanie?logout")
                 .invalidateHttpSession(true)
                 .clearAuthentication(true)
-                .deleteCookies("JSESSIONID", "remember-me")
+                .deleteCookies("SESSION")
                 .permitAll()
             );
 
@@ -0,0 +1,149 @@
+package pl.learnedge.config;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import pl.learnedge.dto.UserPrincipal;
+import pl.learnedge.model.LearningStyle;
+
+import java.io.*;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Zapis atrybutów sesji w SPRING_SESSION_ATTRIBUTES:
+// - kontekst bezpieczeństwa z UserPrincipal: znacznik + same pola,
+// - pozostałe atrybuty (zapamiętane żądanie, flash, OAuth2): serializacja Javy, kompresowana powyżej progu.
+// Zwykła serializacja Javy (0xAC 0xED) jest też czytana, więc sesje zapisane wcześniej pozostają ważne.
+public class SessionAttributeCodec {
+
+    static final int COMPRESS_THRESHOLD = 512;
+
+    private static final byte SECURITY_CONTEXT = 1;
+    private static final byte DEFLATED = 3;
+    private static final byte JAVA_STREAM = (byte) 0xAC;
+
+    private final ClassLoader classLoader;
+
+    public SessionAttributeCodec(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public byte[] serialize(Object value) {
+        try {
+            if (value instanceof SecurityContext context && isCompact(context)) {
+                return writeSecurityContext(context.getAuthentication());
+            }
+            return writeJava(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Nie można zapisać atrybutu sesji: " + value.getClass().getName(), e);
+        }
+    }
+
+    public Object deserialize(byte[] bytes) {
+        try {
+            return switch (bytes[0]) {
+                case SECURITY_CONTEXT -> readSecurityContext(input(bytes));
+                case DEFLATED -> readJava(new InflaterInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1)));
+                case JAVA_STREAM -> readJava(new ByteArrayInputStream(bytes));
+                default -> throw new IllegalStateException("Nieznany format atrybutu sesji: " + bytes[0]);
+            };
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Nie można odczytać atrybutu sesji", e);
+        }
+    }
+
+    // Tylko postać tworzona przy logowaniu i przez AuthService.refreshPrincipal; inne idą serializacją Javy
+    private static boolean isCompact(SecurityContext context) {
+        if (context.getClass() != SecurityContextImpl.class) return false;
+        Authentication authentication = context.getAuthentication();
+        if (authentication == null || authentication.getClass() != UsernamePasswordAuthenticationToken.class
+                || !authentication.isAuthenticated() || authentication.getCredentials() != null) {
+            return false;
+        }
+        Object details = authentication.getDetails();
+        return authentication.getPrincipal() instanceof UserPrincipal principal
+                && principal.id() != null && principal.version() != null
+                && principal.authorities().equals(List.copyOf(authentication.getAuthorities()))
+                && (details == null || details.getClass() == WebAuthenticationDetails.class);
+    }
+
+    private static byte[] writeSecurityContext(Authentication authentication) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(SECURITY_CONTEXT);
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        out.writeLong(principal.id());
+        writeString(out, principal.username());
+        writeString(out, principal.role());
+        out.writeByte(principal.learningStyle().code());
+        writeString(out, principal.firstName());
+        writeString(out, principal.lastName());
+        writeString(out, principal.email());
+        writeString(out, principal.profilePicture());
+        out.writeLong(principal.version());
+        WebAuthenticationDetails details = (WebAuthenticationDetails) authentication.getDetails();
+        out.writeBoolean(details != null);
+        if (details != null) {
+            writeString(out, details.getRemoteAddress());
+            writeString(out, details.getSessionId());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static SecurityContext readSecurityContext(DataInputStream in) throws IOException {
+        UserPrincipal principal = new UserPrincipal(in.readLong(), readString(in), readString(in),
+                learningStyle(in.readByte()), readString(in), readString(in), readString(in), readString(in),
+                in.readLong());
+        UsernamePasswordAuthenticationToken authentication =
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.authorities());
+        if (in.readBoolean()) {
+            authentication.setDetails(new WebAuthenticationDetails(readString(in), readString(in)));
+        }
+        return new SecurityContextImpl(authentication);
+    }
+
+    private static byte[] writeJava(Object value) throws IOException {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(plain)) {
+            out.writeObject(value);
+        }
+        if (plain.size() <= COMPRESS_THRESHOLD) return plain.toByteArray();
+
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(plain.size() / 2);
+        deflated.write(DEFLATED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(deflated)) {
+            plain.writeTo(out);
+        }
+        return deflated.size() < plain.size() ? deflated.toByteArray() : plain.toByteArray();
+    }
+
+    private Object readJava(InputStream in) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objects = new ConfigurableObjectInputStream(in, classLoader)) {
+            return objects.readObject();
+        }
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static LearningStyle learningStyle(int code) {
+        for (LearningStyle style : LearningStyle.values()) {
+            if (style.code() == code) return style;
+        }
+        return LearningStyle.NONE;
+    }
+}
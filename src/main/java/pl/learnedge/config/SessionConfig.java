@@ -0,0 +1,41 @@
+package pl.learnedge.config;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.security.SpringSessionBackedSessionRegistry;
+
+// Sesje HTTP w bazie (Spring Session JDBC, tabele z 027-create-http-sessions.xml), wspólne dla wszystkich węzłów.
+// Zapisywane są tylko zmienione atrybuty, raz na żądanie (spring.session.jdbc.*),
+// a wygasłe sesje usuwa okresowe sprzątanie po indeksie EXPIRY_TIME.
+@Configuration
+public class SessionConfig implements BeanClassLoaderAware {
+
+    private ClassLoader classLoader;
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    // JdbcHttpSessionConfiguration szuka konwertera atrybutów pod tą nazwą
+    @Bean("springSessionConversionService")
+    public ConversionService springSessionConversionService() {
+        SessionAttributeCodec codec = new SessionAttributeCodec(classLoader);
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, codec::serialize);
+        conversionService.addConverter(byte[].class, Object.class, codec::deserialize);
+        return conversionService;
+    }
+
+    // Sesje użytkownika liczone w SPRING_SESSION po PRINCIPAL_NAME, więc limit obejmuje wszystkie węzły
+    @Bean
+    public <S extends Session> SpringSessionBackedSessionRegistry<S> sessionRegistry(
+            FindByIndexNameSessionRepository<S> sessionRepository) {
+        return new SpringSessionBackedSessionRegistry<>(sessionRepository);
+    }
+}
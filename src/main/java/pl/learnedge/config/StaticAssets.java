@@ -0,0 +1,19 @@
+package pl.learnedge.config;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Sprawdza, czy plik wygenerowany przy budowaniu (StaticAssetPipeline) jest na classpath.
+// Przy uruchomieniu z IDE krok Mavena się nie wykonuje, więc szablony ładują wtedy skrypty źródłowe.
+@Component("staticAssets")
+public class StaticAssets {
+
+    private final Map<String, Boolean> present = new ConcurrentHashMap<>();
+
+    public boolean exists(String path) {
+        return present.computeIfAbsent(path, p -> new ClassPathResource("static/" + p).exists());
+    }
+}
@@ -2,16 +2,19 @@ package pl.learnedge.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // Pliki z /uploads/** (zdjęcia profilowe, media lekcji) serwuje MediaController z obsługą Range
+
+    // Łańcuch zasobów statycznych (odciski treści, warianty .gz, przepisywanie @{} w Thymeleaf)
+    // konfiguruje spring.web.resources.chain w application.yml
     @Override
-    public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
-        // Serve uploaded profile pictures publicly like YouTube/Instagram/Facebook
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:./uploads/");
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        registry.addInterceptor(new StaticResourceCacheInterceptor())
+                .addPathPatterns("/css/**", "/js/**", "/img/**", "/audio/**", "/video/**");
     }
-}
\ No newline at end of file
+}
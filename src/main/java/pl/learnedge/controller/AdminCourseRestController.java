@@ -0,0 +1,65 @@
+package pl.learnedge.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pl.learnedge.dto.CacheStats;
+import pl.learnedge.dto.CourseDto;
+import pl.learnedge.dto.CourseImportStatus;
+import pl.learnedge.service.CourseImportService;
+import pl.learnedge.service.CourseService;
+import pl.learnedge.service.LessonOrderingService;
+
+import java.io.IOException;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/courses")
+public class AdminCourseRestController {
+
+    private final CourseService courseService;
+    private final CourseImportService courseImportService;
+    private final LessonOrderingService lessonOrderingService;
+
+    @PutMapping("/{id}")
+    public CourseDto updateCourse(@PathVariable Long id, @RequestBody CourseDto updated) {
+        return courseService.updateCourse(id, updated);
+    }
+
+    // Cała nowa kolejność lekcji kursu (lista id) zapisywana jednym poleceniem
+    @PutMapping("/{id}/lessons/order")
+    public ResponseEntity<?> reorderLessons(@PathVariable Long id, @RequestBody List<Long> lessonIds) {
+        try {
+            lessonOrderingService.reorder(id, lessonIds);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/cache-stats")
+    public CacheStats getCatalogCacheStats() {
+        return courseService.getCatalogCacheStats();
+    }
+
+    // Treść żądania to sam plik zip (nie multipart), czytany strumieniowo bez limitu uploadu 5 MB
+    @PostMapping(value = "/import", consumes = {"application/zip", "application/octet-stream"})
+    public ResponseEntity<CourseImportStatus> importCourse(HttpServletRequest request) throws IOException {
+        CourseImportStatus status = courseImportService.importCourse(request.getInputStream());
+        return "FAILED".equals(status.phase())
+                ? ResponseEntity.badRequest().body(status)
+                : ResponseEntity.ok(status);
+    }
+
+    @GetMapping("/imports")
+    public List<CourseImportStatus> getRecentImports() {
+        return courseImportService.getRecentImports();
+    }
+
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<CourseImportStatus> getImport(@PathVariable String id) {
+        return ResponseEntity.of(courseImportService.getImport(id));
+    }
+}
@@ -3,7 +3,11 @@ package pl.learnedge.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import pl.learnedge.dto.LessonProgressUpdate;
+import pl.learnedge.dto.PasswordHashingStats;
 import pl.learnedge.model.User;
+import pl.learnedge.service.LessonService;
+import pl.learnedge.service.PasswordHasher;
 import pl.learnedge.service.UserService;
 import java.util.List;
 
@@ -13,12 +17,19 @@ import java.util.List;
 public class AdminUserRestController {
 
     private final UserService userService;
+    private final LessonService lessonService;
+    private final PasswordHasher passwordHasher;
 
     @GetMapping
     public List<User> getUsers() {
         return userService.getAllUsers();
     }
 
+    @GetMapping("/password-hashing-stats")
+    public PasswordHashingStats passwordHashingStats() {
+        return passwordHasher.stats();
+    }
+
     @GetMapping("/{id}")
     public User getUser(@PathVariable Long id) {
         return userService.getUserById(id);
@@ -29,6 +40,16 @@ public class AdminUserRestController {
         return userService.adminUpdateUser(id, updated);
     }
 
+    // Uzupełnianie postępu, np. dla kursantów przeniesionych z innego systemu (nieznane konto: brak zmian)
+    @PutMapping("/{id}/progress")
+    public ResponseEntity<?> updateProgress(@PathVariable Long id, @RequestBody List<LessonProgressUpdate> updates) {
+        try {
+            return ResponseEntity.ok(lessonService.updateProgress(id, updates));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
         userService.deleteUser(id);
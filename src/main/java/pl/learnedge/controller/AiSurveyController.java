@@ -1,7 +1,6 @@
 package pl.learnedge.controller;
 
 // ...istniejące importy...
-import pl.learnedge.model.User;
 import pl.learnedge.service.LearningStyleService;
 // Importujemy wewnętrzną klasę z wynikiem
 import pl.learnedge.service.LearningStyleService.AnalysisResult;
@@ -29,10 +28,7 @@ public class AiSurveyController {
             return ResponseEntity.badRequest().body(Map.of("error", "Brak stylu do ustawienia"));
         }
         try {
-            User currentUser = learningStyleService.getAuthenticatedUser();
-            currentUser.setLearningStyle(style.toUpperCase());
-            learningStyleService.getUserRepository().save(currentUser);
-            learningStyleService.updateAuthenticationObject(currentUser);
+            learningStyleService.updateLearningStyle(style.toUpperCase());
             return ResponseEntity.ok(Map.of("success", true, "style", style.toUpperCase()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Nie udało się ustawić stylu"));
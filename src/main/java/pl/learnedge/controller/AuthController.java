@@ -1,11 +1,14 @@
 package pl.learnedge.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import pl.learnedge.exception.PasswordHashingBusyException;
 import pl.learnedge.service.UserService;
 
 @Controller
@@ -29,12 +32,19 @@ public class AuthController {
     @PostMapping("/rejestracja")
     public String registerSubmit(@RequestParam String username,
                                  @RequestParam(required = false) String email,
-                                 @RequestParam String password) {
+                                 @RequestParam String password,
+                                 Model model,
+                                 HttpServletResponse response) {
         try {
             userService.register(username, email, password);
             return "redirect:/logowanie?registered";
         } catch (IllegalArgumentException ex) {
             return "redirect:/rejestracja?error=" + ex.getMessage().replace(" ", "%20");
+        } catch (PasswordHashingBusyException ex) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(PasswordHashingBusyException.RETRY_AFTER_SECONDS));
+            model.addAttribute("error", ex.getMessage());
+            return "home/register";
         }
     }
 }
\ No newline at end of file
@@ -1,32 +1,69 @@
 package pl.learnedge.controller;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import pl.learnedge.dto.CourseDto;
+import pl.learnedge.dto.CoursePage;
+import pl.learnedge.dto.CourseVersion;
 import pl.learnedge.exception.UserAlreadyEnrollException;
 import pl.learnedge.model.Course;
 import pl.learnedge.model.User;
 import pl.learnedge.service.AuthService;
 import pl.learnedge.service.CourseService;
+import pl.learnedge.util.ETags;
 
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 @Controller
 @AllArgsConstructor
 public class CourseController {
 
+    private static final int CATALOG_PAGE_SIZE = 12;
+    private static final int LESSON_PAGE_SIZE = 60;
+
     private final CourseService courseService;
     private final AuthService authService;
 
     @GetMapping("/dostepne-kursy")
-    public String course(Model model) {
-        return loadCourses(model, courseService::getAvailableCoursesForUser, "dashboard/available-courses");
+    public String course(@RequestParam(value = "poziom", required = false) String difficulty,
+                         @RequestParam(value = "po", required = false) String cursor,
+                         Model model) {
+        long userId = authService.getCurrentUserId();
+        CoursePage page;
+        try {
+            page = courseService.getAvailableCoursesPage(userId, difficulty, cursor, CATALOG_PAGE_SIZE);
+        } catch (IllegalArgumentException e) {
+            page = courseService.getAvailableCoursesPage(userId, difficulty, null, CATALOG_PAGE_SIZE);
+        }
+        model.addAttribute("courses", page.courses());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("difficulty", difficulty);
+        model.addAttribute("difficulties", courseService.getCourseDifficulties());
+        return "dashboard/available-courses";
+    }
+
+    @GetMapping("/api/kursy")
+    @ResponseBody
+    public ResponseEntity<?> availableCourses(@RequestParam(value = "difficulty", required = false) String difficulty,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", defaultValue = "12") int size) {
+        long userId = authService.getCurrentUserId();
+        try {
+            return ResponseEntity.ok(courseService.getAvailableCoursesPage(userId, difficulty, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/panel")
@@ -45,10 +82,22 @@ public class CourseController {
     }
 
     @GetMapping("/kurs/{slug}")
-    public String course(@PathVariable String slug, Model model){
+    public String course(@PathVariable String slug,
+                         @RequestParam(value = "strona", defaultValue = "1") int page,
+                         Model model,
+                         ServletWebRequest webRequest){
         long userId = authService.getCurrentUserId();
-        CourseDto course =  courseService.getCourseBySlug(slug, userId);
+        CourseVersion version = courseService.getCourseVersion(slug, userId);
+        String etag = ETags.of("c" + version.id(), version.contentVersion(), version.completedLessons(), userId,
+                ETags.sessionFingerprint(webRequest.getRequest()));
+        if (ETags.checkNotModified(webRequest, etag, version.updatedAt())) {
+            return null;
+        }
+        CourseDto course =  courseService.getCourseBySlug(slug, userId, page - 1, LESSON_PAGE_SIZE);
+        int pages = Math.max(1, (course.getLessonCount() + LESSON_PAGE_SIZE - 1) / LESSON_PAGE_SIZE);
         model.addAttribute("course", course);
+        model.addAttribute("page", Math.max(1, page));
+        model.addAttribute("pages", pages);
         return "course/course";
     }
 
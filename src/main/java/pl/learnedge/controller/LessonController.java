@@ -5,9 +5,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import pl.learnedge.dto.CacheStats;
+import pl.learnedge.dto.CurrentUser;
 import pl.learnedge.dto.LessonDto;
+import pl.learnedge.dto.LessonMoveRequest;
+import pl.learnedge.dto.LessonProgressUpdate;
+import pl.learnedge.dto.LessonVersion;
 import pl.learnedge.exception.LessonNotFoundException;
 import pl.learnedge.model.Lesson;
 import pl.learnedge.model.LessonProgress;
@@ -16,8 +22,9 @@ import pl.learnedge.repository.LessonProgressRepository;
 import pl.learnedge.repository.LessonRepository;
 import pl.learnedge.repository.UserRepository;
 import pl.learnedge.service.AuthService;
+import pl.learnedge.service.LessonOrderingService;
 import pl.learnedge.service.LessonService;
-import pl.learnedge.service.UserService;
+import pl.learnedge.util.ETags;
 
 import java.util.List;
 
@@ -26,21 +33,29 @@ import java.util.List;
 public class LessonController {
 
     private final LessonService lessonService;
+    private final LessonOrderingService lessonOrderingService;
     private final AuthService authService;
     private final LessonRepository lessonRepository;
     private final LessonProgressRepository lessonProgressRepository;
     private final UserRepository userRepository;
-    private final UserService userService;
 
     @GetMapping("/kurs/{course_slug}/{lesson_slug}")
-    public String lesson(@PathVariable String course_slug, @PathVariable String lesson_slug, Model model, RedirectAttributes redirectAttributes) {
-        Long userId = authService.getCurrentUserId();
-        if(userService.getLearningStyleByUserId(userId) == 0){
+    public String lesson(@PathVariable String course_slug, @PathVariable String lesson_slug, Model model,
+                         RedirectAttributes redirectAttributes, ServletWebRequest webRequest) {
+        CurrentUser user = authService.getCurrentUserContext();
+        Long userId = user.id();
+        int userLearningStyle = user.learningStyle().code();
+        if(userLearningStyle == 0){
             redirectAttributes.addFlashAttribute("errorMessage", "Musisz posiadać styl uczenia się aby przejść do lekcji!");
             return "redirect:/ankieta";
         }
-        LessonDto lesson = lessonService.getLessonBySlug(lesson_slug);
-        int userLearningStyle = userService.getLearningStyleByUserId(authService.getCurrentUserId());
+        LessonVersion version = lessonService.getLessonVersion(course_slug, lesson_slug);
+        String etag = ETags.of("l" + version.id(), version.contentVersion(), userLearningStyle, userId,
+                ETags.sessionFingerprint(webRequest.getRequest()));
+        if (ETags.checkNotModified(webRequest, etag, version.updatedAt())) {
+            return null;
+        }
+        LessonDto lesson = lessonService.getLessonForLearningStyle(version.id(), userLearningStyle);
         model.addAttribute("userLearningStyle", userLearningStyle);
         model.addAttribute("lesson", lesson);
         return "course/lesson";
@@ -74,12 +89,52 @@ public class LessonController {
         return ResponseEntity.ok("Lesson saved successfully");
     }
 
+    @DeleteMapping("/api/admin/lessons/{lessonId}")
+    @ResponseBody
+    public ResponseEntity<?> deleteLesson(@PathVariable Long lessonId) {
+        lessonService.deleteLesson(lessonId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/api/admin/lessons/{lessonId}/position")
+    @ResponseBody
+    public ResponseEntity<?> moveLesson(@PathVariable Long lessonId, @RequestBody LessonMoveRequest request) {
+        try {
+            lessonOrderingService.moveAfter(lessonId, request.afterLessonId());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/api/admin/lessons/variant-cache-stats")
+    @ResponseBody
+    public CacheStats getVariantCacheStats() {
+        return lessonService.getVariantCacheStats();
+    }
+
+    // Stan wielu lekcji bieżącego użytkownika naraz, np. zaległości klienta offline
+    @PutMapping("/api/progress")
+    @ResponseBody
+    public ResponseEntity<?> updateProgress(@RequestBody List<LessonProgressUpdate> updates) {
+        Long userId = authService.getCurrentUserId();
+        try {
+            return ResponseEntity.ok(lessonService.updateProgress(userId, updates));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 202: ukończenie czeka w kolejce zapisu w tle, 204: już zapisane
     @PutMapping("/api/{lessonId}/complete")
     public ResponseEntity<?> completeLesson(@PathVariable Long lessonId) {
         Long userId = authService.getCurrentUserId();
-        System.err.println("userId: " + userId + " lesson id = " + lessonId + "");
-        lessonService.markLessonAsCompleted(lessonId, userId);
-        return null;
+        try {
+            boolean queued = lessonService.completeLesson(lessonId, userId);
+            return queued ? ResponseEntity.accepted().build() : ResponseEntity.noContent().build();
+        } catch (LessonNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
     }
 
 
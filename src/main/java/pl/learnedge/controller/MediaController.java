@@ -0,0 +1,233 @@
+package pl.learnedge.controller;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UriUtils;
+import pl.learnedge.dto.MediaStats;
+import pl.learnedge.service.MediaService;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Serwowanie plików z /uploads (audio/wideo lekcji, zdjęcia) z obsługą Range, wielu zakresów i If-Range.
+// Pojedyncze zakresy idą przez sendfile Tomcata (wysyłka poza wątkiem żądania, bez kopiowania na stertę),
+// a gdy sendfile nie jest dostępny - przez FileChannel.transferTo.
+@Controller
+@RequiredArgsConstructor
+public class MediaController {
+
+    private static final String UPLOADS_PREFIX = "/uploads/";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Mniejsze pliki Tomcat i tak wysyła zwykłym zapisem (domyślne sendfileSize = 48 KB)
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private static final int MAX_RANGES = 16;
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePublic().getHeaderValue();
+    private static final String CONTENT_ADDRESSED_PREFIX = "media/";
+    private static final String IMMUTABLE_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic()
+            .immutable()
+            .getHeaderValue();
+
+    private final MediaService mediaService;
+
+    private record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    @GetMapping("/uploads/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        // Ścieżka dopasowania jest zakodowana (PathPatternParser) - nazwy plików mogą mieć spacje i polskie znaki
+        String relativePath = path != null && path.startsWith(UPLOADS_PREFIX)
+                ? UriUtils.decode(path.substring(UPLOADS_PREFIX.length()), StandardCharsets.UTF_8)
+                : "";
+        Path file = mediaService.resolveOrOriginal(relativePath).orElse(null);
+        if (file == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        // Pliki z magazynu treści (media/{hash}) nigdy się nie zmieniają - chyba że to oryginał podany zamiast wariantu
+        boolean immutable = relativePath.startsWith(CONTENT_ADDRESSED_PREFIX) && file.endsWith(relativePath);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE_CACHE_CONTROL : CACHE_CONTROL);
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String contentType = mediaService.contentType(file).toString();
+
+        List<ByteRange> ranges;
+        try {
+            ranges = requestedRanges(request, etag, lastModified, length);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return;
+        }
+
+        boolean head = "HEAD".equals(request.getMethod());
+        long served;
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            served = head ? 0 : send(request, response, file, 0, length);
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range, length));
+            response.setContentLengthLong(range.length());
+            served = head ? 0 : send(request, response, file, range.start(), range.length());
+        } else {
+            served = sendMultipart(response, file, contentType, ranges, length, head);
+        }
+        mediaService.recordServed(file, served);
+    }
+
+    @GetMapping("/api/admin/media/stats")
+    @ResponseBody
+    public List<MediaStats> stats(@RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return mediaService.topByBytesServed(Math.max(1, Math.min(limit, 200)));
+    }
+
+    // Pusta lista = cały plik. If-Range niezgodny z aktualną wersją też oznacza cały plik.
+    private List<ByteRange> requestedRanges(HttpServletRequest request, String etag, long lastModified, long length) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeMatches(request, etag, lastModified)) {
+            return List.of();
+        }
+
+        List<HttpRange> httpRanges = HttpRange.parseRanges(rangeHeader);
+        if (httpRanges.isEmpty() || httpRanges.size() > MAX_RANGES) {
+            return List.of();
+        }
+
+        // Zakresy zaczynające się za końcem pliku są pomijane; gdy nie zostaje żaden -> 416
+        List<ByteRange> ranges = new ArrayList<>(httpRanges.size());
+        long total = 0;
+        for (HttpRange httpRange : httpRanges) {
+            ByteRange range = new ByteRange(httpRange.getRangeStart(length), httpRange.getRangeEnd(length));
+            if (range.start() >= length || range.start() > range.end()) continue;
+            total += range.length();
+            ranges.add(range);
+        }
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("Żaden z zakresów nie mieści się w pliku");
+        }
+        // Zachodzące na siebie zakresy dłuższe niż plik - taniej wysłać całość
+        return total > length ? List.of() : ranges;
+    }
+
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range wymaga silnego porównania - słaby ETag nigdy nie pasuje
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date >= 0 && date / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private long send(HttpServletRequest request, HttpServletResponse response,
+                      Path file, long start, long count) throws IOException {
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return count;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return transfer(channel, Channels.newChannel(response.getOutputStream()), start, count);
+        }
+    }
+
+    private long sendMultipart(HttpServletResponse response, Path file, String contentType,
+                               List<ByteRange> ranges, long length, boolean head) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        long contentLength = closing.length;
+        for (ByteRange range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range, length) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range.length();
+        }
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) return 0;
+
+        long served = 0;
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                ByteRange range = ranges.get(i);
+                out.write(partHeaders.get(i));
+                served += transfer(channel, target, range.start(), range.length());
+            }
+        }
+        out.write(closing);
+        return served;
+    }
+
+    private static long transfer(FileChannel channel, WritableByteChannel target, long start, long count) throws IOException {
+        long position = start;
+        long remaining = count;
+        while (remaining > 0) {
+            long sent = channel.transferTo(position, remaining, target);
+            if (sent <= 0) break;
+            position += sent;
+            remaining -= sent;
+        }
+        return count - remaining;
+    }
+
+    private static String contentRange(ByteRange range, long length) {
+        return "bytes " + range.start() + "-" + range.end() + "/" + length;
+    }
+}
@@ -1,9 +1,12 @@
 package pl.learnedge.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.Email;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import pl.learnedge.dto.ChangePasswordRequest;
+import pl.learnedge.exception.PasswordHashingBusyException;
 import pl.learnedge.model.User;
 import pl.learnedge.service.EmailService;
 import pl.learnedge.service.PasswordService;
@@ -61,11 +65,19 @@ public class PasswordController {
     @PostMapping("/reset-hasla")
     public String doReset(@RequestParam String token,
                           @RequestParam String password,
+                          Model model,
+                          HttpServletResponse response,
                           RedirectAttributes ra) {
         try {
             passwordService.resetPassword(token, password);
             ra.addFlashAttribute("info", "Hasło zmienione. Zaloguj się nowym hasłem.");
             return "redirect:/logowanie";
+        } catch (PasswordHashingBusyException ex) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(PasswordHashingBusyException.RETRY_AFTER_SECONDS));
+            model.addAttribute("token", token);
+            model.addAttribute("error", ex.getMessage());
+            return "home/reset-password";
         } catch (RuntimeException ex) {
             ra.addFlashAttribute("error", ex.getMessage());
             return "redirect:/reset-hasla?token=" + token;
@@ -84,6 +96,12 @@ public class PasswordController {
             Map<String, String> body = new HashMap<>();
             body.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(body);
+        } catch (PasswordHashingBusyException e) {
+            Map<String, String> body = new HashMap<>();
+            body.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(PasswordHashingBusyException.RETRY_AFTER_SECONDS))
+                    .body(body);
         } catch (Exception e) {
             log.error("Change password error: ", e);
             Map<String, String> body = new HashMap<>();
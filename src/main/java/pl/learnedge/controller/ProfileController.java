@@ -3,9 +3,6 @@ package pl.learnedge.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -55,17 +52,10 @@ public class ProfileController {
 
     @PostMapping("/profil")
     public String updateProfile(UpdateProfileDto profileDto, RedirectAttributes ra) {
-        User user = authService.getCurrentUser();
-        if (user == null) {
-            ra.addFlashAttribute("error", "Nie można pobrać danych użytkownika. Spróbuj ponownie.");
-            return "redirect:/profil";
-        }
+        Long userId = authService.getCurrentPrincipal().id();
         try {
-            User updatedUser = userService.updateProfile(user.getId(), profileDto);
-            var auth = new UsernamePasswordAuthenticationToken(
-                updatedUser, updatedUser.getPassword(), updatedUser.getAuthorities()
-            );
-            SecurityContextHolder.getContext().setAuthentication(auth);
+            User updatedUser = userService.updateProfile(userId, profileDto);
+            authService.refreshPrincipal(updatedUser);
             ra.addFlashAttribute("success", "Profil został zaktualizowany.");
         } catch (Exception e) {
             log.error("Błąd aktualizacji profilu", e);
@@ -0,0 +1,42 @@
+package pl.learnedge.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import pl.learnedge.service.CourseSearchService;
+import pl.learnedge.service.SearchIndex;
+
+import java.util.List;
+
+@Controller
+@RequiredArgsConstructor
+public class SearchController {
+
+    private static final int MAX_RESULTS = 50;
+
+    private final CourseSearchService courseSearchService;
+
+    @GetMapping("/szukaj")
+    public String search(@RequestParam(value = "q", required = false) String query, Model model) {
+        model.addAttribute("query", query);
+        model.addAttribute("results", query != null ? courseSearchService.search(query, 20) : List.of());
+        return "dashboard/search";
+    }
+
+    @GetMapping("/api/szukaj")
+    @ResponseBody
+    public List<SearchIndex.Hit> searchApi(@RequestParam("q") String query,
+                                           @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return courseSearchService.search(query, Math.min(limit, MAX_RESULTS));
+    }
+
+    @GetMapping("/api/szukaj/podpowiedzi")
+    @ResponseBody
+    public List<String> suggest(@RequestParam("q") String prefix,
+                                @RequestParam(value = "limit", defaultValue = "8") int limit) {
+        return courseSearchService.suggest(prefix, Math.min(limit, MAX_RESULTS));
+    }
+}
@@ -0,0 +1,9 @@
+package pl.learnedge.dto;
+
+public record CacheStats(long hits,
+                         long misses,
+                         long evictions,
+                         int entries,
+                         long weightBytes,
+                         long maxWeightBytes) {
+}
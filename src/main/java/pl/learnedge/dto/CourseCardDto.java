@@ -0,0 +1,15 @@
+package pl.learnedge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Lekki kafelek kursu do katalogu (bez kolumny LOB z opisem)
+@Getter
+@AllArgsConstructor
+public class CourseCardDto {
+    private Long id;
+    private String name;
+    private String summary;
+    private String difficulty;
+    private String slug;
+}
@@ -0,0 +1,43 @@
+package pl.learnedge.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Pozycja w katalogu dla paginacji keyset po (difficulty, name, id), przekazywana jako nieprzezroczysty token.
+// Poziom zapisywany jest ze znacznikiem, żeby brak poziomu (null) nie mylił się z tekstem "null"
+public record CourseCursor(String difficulty, String name, Long id) {
+
+    private static final char SEPARATOR = '\u001F';
+    private static final char NO_DIFFICULTY = '0';
+    private static final char DIFFICULTY = '1';
+
+    public static CourseCursor after(CourseCardDto course) {
+        return new CourseCursor(course.getDifficulty(), course.getName(), course.getId());
+    }
+
+    public String encode() {
+        String raw = (difficulty == null ? String.valueOf(NO_DIFFICULTY) : DIFFICULTY + difficulty)
+                + SEPARATOR + name + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CourseCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int last = raw.lastIndexOf(SEPARATOR);
+            if (first < 1 || first == last) {
+                throw new IllegalArgumentException("Nieprawidłowy kursor");
+            }
+            String difficulty = switch (raw.charAt(0)) {
+                case NO_DIFFICULTY -> null;
+                case DIFFICULTY -> raw.substring(1, first);
+                default -> throw new IllegalArgumentException("Nieprawidłowy kursor");
+            };
+            return new CourseCursor(difficulty, raw.substring(first + 1, last),
+                    Long.parseLong(raw.substring(last + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nieprawidłowy kursor", e);
+        }
+    }
+}
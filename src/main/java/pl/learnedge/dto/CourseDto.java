@@ -10,7 +10,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class CourseDto {
     private Long id;
     private String name;
@@ -18,6 +18,7 @@ public class CourseDto {
     private String difficulty;
     private double progress;
     private String slug;
-    private List<LessonDto> lessons;
+    private int lessonCount;
+    private List<LessonSummaryDto> lessons;
 
 }
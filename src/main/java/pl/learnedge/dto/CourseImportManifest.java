@@ -0,0 +1,13 @@
+package pl.learnedge.dto;
+
+import java.util.List;
+
+// manifest.json paczki importu kursu; file to ścieżka pliku HTML lekcji w archiwum
+public record CourseImportManifest(String name,
+                                   String description,
+                                   String difficulty,
+                                   List<Lesson> lessons) {
+
+    public record Lesson(String title, String file) {
+    }
+}
@@ -0,0 +1,15 @@
+package pl.learnedge.dto;
+
+// Migawka postępu importu kursu z paczki zip; czasy jako tekst ISO-8601
+public record CourseImportStatus(String id,
+                                 String phase,
+                                 String courseSlug,
+                                 long bytesRead,
+                                 int entriesRead,
+                                 int mediaStored,
+                                 int lessonsTotal,
+                                 int lessonsSaved,
+                                 String error,
+                                 String startedAt,
+                                 String finishedAt) {
+}
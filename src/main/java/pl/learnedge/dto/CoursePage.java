@@ -0,0 +1,10 @@
+package pl.learnedge.dto;
+
+import java.util.List;
+
+public record CoursePage(List<CourseCardDto> courses, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,4 @@
+package pl.learnedge.dto;
+
+public record CourseProgress(Long courseId, String slug, int completedLessons, int lessonCount, int progress) {
+}
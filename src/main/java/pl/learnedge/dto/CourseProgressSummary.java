@@ -0,0 +1,17 @@
+package pl.learnedge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Course card data with denormalized lesson counters (never touches lesson content)
+@Getter
+@AllArgsConstructor
+public class CourseProgressSummary {
+    private Long id;
+    private String name;
+    private String description;
+    private String difficulty;
+    private String slug;
+    private Integer totalLessons;
+    private Integer completedLessons;
+}
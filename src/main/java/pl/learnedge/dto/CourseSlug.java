@@ -0,0 +1,4 @@
+package pl.learnedge.dto;
+
+public record CourseSlug(Long id, String slug) {
+}
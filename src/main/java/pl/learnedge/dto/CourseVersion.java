@@ -0,0 +1,7 @@
+package pl.learnedge.dto;
+
+import java.time.LocalDateTime;
+
+// Wersja strony kursu dla użytkownika: wersja kursu + liczba ukończonych przez niego lekcji
+public record CourseVersion(Long id, int contentVersion, LocalDateTime updatedAt, int completedLessons) {
+}
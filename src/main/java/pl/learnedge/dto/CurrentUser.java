@@ -0,0 +1,11 @@
+package pl.learnedge.dto;
+
+import pl.learnedge.model.LearningStyle;
+
+// Niezmienny kontekst zalogowanego użytkownika, wyliczany z UserPrincipal przez AuthService
+public record CurrentUser(Long id, String username, String role, LearningStyle learningStyle) {
+
+    public static CurrentUser from(UserPrincipal principal) {
+        return new CurrentUser(principal.id(), principal.username(), principal.role(), principal.learningStyle());
+    }
+}
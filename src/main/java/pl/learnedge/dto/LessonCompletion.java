@@ -0,0 +1,4 @@
+package pl.learnedge.dto;
+
+public record LessonCompletion(Long userId, Long lessonId) {
+}
@@ -0,0 +1,4 @@
+package pl.learnedge.dto;
+
+public record LessonCourseRef(Long lessonId, Long courseId) {
+}
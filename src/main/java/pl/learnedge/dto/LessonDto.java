@@ -18,4 +18,14 @@ public class LessonDto {
     private Course course;
     private String slug;
     private boolean completed;
+    private int contentVersion;
+
+    // Projekcja JPQL bez treści lekcji
+    public LessonDto(Long id, String title, String slug, int lessonOrder, int contentVersion) {
+        this.id = id;
+        this.title = title;
+        this.slug = slug;
+        this.lessonOrder = lessonOrder;
+        this.contentVersion = contentVersion;
+    }
 }
@@ -0,0 +1,5 @@
+package pl.learnedge.dto;
+
+// Nowe miejsce lekcji: za wskazaną lekcją tego samego kursu albo na początku (afterLessonId = null)
+public record LessonMoveRequest(Long afterLessonId) {
+}
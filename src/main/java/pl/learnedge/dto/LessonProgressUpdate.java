@@ -0,0 +1,5 @@
+package pl.learnedge.dto;
+
+// Element żądania zbiorczego: brak "completed" oznacza ukończenie
+public record LessonProgressUpdate(Long lessonId, Boolean completed) {
+}
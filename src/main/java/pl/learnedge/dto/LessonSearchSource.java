@@ -0,0 +1,10 @@
+package pl.learnedge.dto;
+
+// Dane lekcji potrzebne do zbudowania wpisu w indeksie wyszukiwania
+public record LessonSearchSource(Long id,
+                                 String title,
+                                 String content,
+                                 String slug,
+                                 String courseName,
+                                 String courseSlug) {
+}
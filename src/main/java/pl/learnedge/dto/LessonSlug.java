@@ -0,0 +1,4 @@
+package pl.learnedge.dto;
+
+public record LessonSlug(Long id, Long courseId, String slug) {
+}
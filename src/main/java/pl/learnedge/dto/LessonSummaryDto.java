@@ -0,0 +1,20 @@
+package pl.learnedge.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+// Pozycja spisu treści kursu - bez treści lekcji (LOB) i encji kursu
+@Getter
+@RequiredArgsConstructor
+public class LessonSummaryDto {
+    private final Long id;
+    private final String title;
+    private final String slug;
+    private final Integer lessonOrder;
+    @Setter
+    private boolean completed;
+    // Numer lekcji w kursie do wyświetlenia (lessonOrder to rzadka ranga)
+    @Setter
+    private int position;
+}
@@ -0,0 +1,7 @@
+package pl.learnedge.dto;
+
+import java.time.LocalDateTime;
+
+// Wersja treści lekcji bez samej treści - do ETag/Last-Modified
+public record LessonVersion(Long id, int contentVersion, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,5 @@
+package pl.learnedge.dto;
+
+// Statystyki serwowania pliku z /uploads
+public record MediaStats(String path, long requests, long bytesServed) {
+}
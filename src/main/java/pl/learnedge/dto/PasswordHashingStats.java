@@ -0,0 +1,12 @@
+package pl.learnedge.dto;
+
+// Statystyki PasswordHasher: czasy w milisekundach, oczekiwanie = czas w kolejce przed haszowaniem
+public record PasswordHashingStats(long completed,
+                                   long rejected,
+                                   long timedOut,
+                                   int active,
+                                   int queued,
+                                   double avgHashMillis,
+                                   double maxHashMillis,
+                                   double avgWaitMillis) {
+}
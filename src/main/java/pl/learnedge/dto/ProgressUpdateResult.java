@@ -0,0 +1,7 @@
+package pl.learnedge.dto;
+
+import java.util.List;
+
+// changed = liczba lekcji, których stan faktycznie się zmienił
+public record ProgressUpdateResult(int changed, List<CourseProgress> courses) {
+}
@@ -0,0 +1,7 @@
+package pl.learnedge.dto;
+
+import java.nio.file.Path;
+
+// Plik zapisany w magazynie treści: hash, ścieżka na dysku i stały publiczny adres
+public record StoredMedia(String hash, Path path, String url) {
+}
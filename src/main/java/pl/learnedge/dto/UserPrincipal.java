@@ -0,0 +1,34 @@
+package pl.learnedge.dto;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import pl.learnedge.model.LearningStyle;
+import pl.learnedge.model.User;
+
+import java.io.Serializable;
+import java.security.Principal;
+import java.util.List;
+
+// Principal trzymany w SecurityContext (i w sesji) zamiast encji User: bez hasła i kolekcji.
+// version to users.version konta, z którego powstał
+public record UserPrincipal(Long id, String username, String role, LearningStyle learningStyle,
+                            String firstName, String lastName, String email, String profilePicture,
+                            Long version)
+        implements AuthenticatedPrincipal, Principal, Serializable {
+
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getRole(),
+                LearningStyle.of(user.getLearningStyle()), user.getFirstName(), user.getLastName(),
+                user.getEmail(), user.getProfilePicture(), user.getVersion());
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority(role));
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
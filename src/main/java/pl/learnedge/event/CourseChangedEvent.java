@@ -0,0 +1,5 @@
+package pl.learnedge.event;
+
+// Publikowany po utworzeniu lub edycji kursu
+public record CourseChangedEvent(Long courseId) {
+}
@@ -0,0 +1,9 @@
+package pl.learnedge.event;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public record ImageUploadedEvent(List<Path> files, Kind kind) {
+
+    public enum Kind { AVATAR, LESSON_IMAGE }
+}
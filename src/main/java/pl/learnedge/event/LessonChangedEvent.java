@@ -0,0 +1,5 @@
+package pl.learnedge.event;
+
+// Publikowany po utworzeniu, zmianie lub usunięciu lekcji
+public record LessonChangedEvent(Long lessonId, Long courseId) {
+}
@@ -0,0 +1,11 @@
+package pl.learnedge.exception;
+
+// Kolejka haszowania haseł pełna albo zadanie czekało dłużej niż max-wait; odpowiedź 503 z Retry-After
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public static final int RETRY_AFTER_SECONDS = 1;
+
+    public PasswordHashingBusyException() {
+        super("Serwer jest chwilowo przeciążony. Spróbuj ponownie za chwilę.");
+    }
+}
@@ -2,9 +2,9 @@ package pl.learnedge.mapper;
 
 import org.springframework.stereotype.Component;
 import pl.learnedge.dto.CourseDto;
-import pl.learnedge.dto.LessonDto;
+import pl.learnedge.dto.CourseProgressSummary;
+import pl.learnedge.dto.LessonSummaryDto;
 import pl.learnedge.model.Course;
-import pl.learnedge.model.Lesson;
 import pl.learnedge.model.UserCourse;
 
 import java.util.List;
@@ -25,6 +25,21 @@ public class CourseMapper {
         return courseDto;
     }
 
+    // Enrolled course card with progress computed from lesson counters
+    public CourseDto toDto(CourseProgressSummary summary) {
+        long totalLessons = summary.getTotalLessons();
+        if (totalLessons == 0) totalLessons = 1;
+
+        CourseDto courseDto = new CourseDto();
+        courseDto.setId(summary.getId());
+        courseDto.setName(summary.getName());
+        courseDto.setDescription(summary.getDescription());
+        courseDto.setDifficulty(summary.getDifficulty());
+        courseDto.setProgress((double) summary.getCompletedLessons() / totalLessons * 100);
+        courseDto.setSlug(summary.getSlug());
+        return courseDto;
+    }
+
     // Not enrolled courses to user
     public CourseDto toDto(Course course) {
         CourseDto courseDto = new CourseDto();
@@ -38,7 +53,7 @@ public class CourseMapper {
     }
 
     // Return course with assigned lesson
-    public CourseDto toDto(Course course, List<LessonDto> lessons) {
+    public CourseDto toDto(Course course, List<LessonSummaryDto> lessons) {
         CourseDto courseDto = new CourseDto();
         courseDto.setId(course.getId());
         courseDto.setName(course.getName());
@@ -46,6 +61,7 @@ public class CourseMapper {
         courseDto.setDifficulty(course.getDifficulty());
         courseDto.setProgress(0);
         courseDto.setSlug(course.getSlug());
+        courseDto.setLessonCount(course.getLessonCount());
         courseDto.setLessons(lessons);
         return courseDto;
 
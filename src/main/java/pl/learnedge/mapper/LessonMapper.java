@@ -14,6 +14,7 @@ public class LessonMapper {
         lessonDto.setLessonOrder(lesson.getLessonOrder());
         lessonDto.setCourse(lesson.getCourse());
         lessonDto.setSlug(lesson.getSlug());
+        lessonDto.setContentVersion(lesson.getContentVersion());
         return lessonDto;
     }
 
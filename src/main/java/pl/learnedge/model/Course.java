@@ -3,6 +3,7 @@ package pl.learnedge.model;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,7 +18,10 @@ import java.util.List;
 public class Course {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "courses_id")
+    @TableGenerator(name = "courses_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "courses", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 100)
@@ -27,17 +31,56 @@ public class Course {
     @Column(nullable = false)
     private String description;
 
+    // Skrót opisu dla list kursów, żeby nie czytać kolumny LOB
+    @Column(length = 255)
+    private String summary;
+
     @Column(length = 30)
     private String difficulty;
 
     @Column(nullable = false, unique = true)
     private String slug;
 
+    @Column(name = "lesson_count", nullable = false)
+    private int lessonCount;
+
+    // Ostatnia przydzielona ranga lekcji; po wstawieniu zmieniana tylko atomowymi UPDATE z CourseRepository,
+    // dlatego encja jej nie nadpisuje
+    @Column(name = "last_lesson_rank", nullable = false, updatable = false)
+    private int lastLessonRank;
+
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Lesson> lessons = new ArrayList<>();
 
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<UserCourse> userCourses = new ArrayList<>();
 
+    // Zmienia się przy edycji kursu i zmianie listy lekcji - podstawa ETagu strony kursu
+    @Column(name = "content_version", nullable = false)
+    private int contentVersion;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    void onCreate() {
+        contentVersion = 1;
+        updatedAt = LocalDateTime.now();
+        updateSummary();
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        contentVersion++;
+        updatedAt = LocalDateTime.now();
+        updateSummary();
+    }
 
+    private void updateSummary() {
+        if (description == null || description.length() <= 255) {
+            summary = description;
+        } else {
+            summary = description.substring(0, 252) + "...";
+        }
+    }
 }
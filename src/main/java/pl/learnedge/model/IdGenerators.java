@@ -0,0 +1,16 @@
+package pl.learnedge.model;
+
+// Wspólne ustawienia @TableGenerator encji (tabela id_generators z changelogu 024).
+// Identyfikatory z puli zamiast IDENTITY pozwalają Hibernate łączyć INSERT-y w paczki JDBC.
+public final class IdGenerators {
+
+    public static final String TABLE = "id_generators";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+
+    // Zmiana wymaga migracji podnoszącej next_val co najmniej o nową wartość
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
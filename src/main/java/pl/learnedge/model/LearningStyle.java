@@ -0,0 +1,29 @@
+package pl.learnedge.model;
+
+import java.util.Locale;
+
+// Styl uczenia zapisany w users.learning_style; code to numer wariantu treści lekcji (0 = brak stylu)
+public enum LearningStyle {
+    NONE(0), AUDITORY(1), VISUAL(2), KINESTHETIC(3);
+
+    private final int code;
+
+    LearningStyle(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    // Nieznane wartości (np. MIXED) traktowane jak brak stylu
+    public static LearningStyle of(String value) {
+        if (value == null) return NONE;
+        return switch (value.trim().toUpperCase(Locale.ROOT)) {
+            case "AUDITORY" -> AUDITORY;
+            case "VISUAL" -> VISUAL;
+            case "KINESTHETIC" -> KINESTHETIC;
+            default -> NONE;
+        };
+    }
+}
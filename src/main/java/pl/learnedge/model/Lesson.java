@@ -3,8 +3,12 @@ package pl.learnedge.model;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @Entity
-@Table(name = "lessons")
+// Slug lekcji jest unikalny w obrębie kursu, tytuł może się powtarzać
+@Table(name = "lessons", uniqueConstraints = @UniqueConstraint(name = "uq_lessons_course_slug",
+        columnNames = {"course_id", "slug"}))
 @Setter
 @Getter
 @NoArgsConstructor
@@ -13,10 +17,13 @@ import lombok.*;
 public class Lesson {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "lessons_id")
+    @TableGenerator(name = "lessons_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "lessons", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
-    @Column(length = 100)
+    @Column(nullable = false, length = 100)
     private String title;
 
     @Lob
@@ -26,12 +33,29 @@ public class Lesson {
     @Column(name = "lesson_order", nullable = false)
     private Integer lessonOrder;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String slug;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id", nullable = false)
     private Course course;
 
+    // Zmienia się przy każdej edycji lekcji - klucz cache wariantów treści
+    @Column(name = "content_version", nullable = false)
+    private int contentVersion;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    void initVersion() {
+        contentVersion = 1;
+        updatedAt = LocalDateTime.now();
+    }
 
+    @PreUpdate
+    void bumpVersion() {
+        contentVersion++;
+        updatedAt = LocalDateTime.now();
+    }
 }
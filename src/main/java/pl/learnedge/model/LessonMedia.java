@@ -0,0 +1,25 @@
+package pl.learnedge.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Odwołanie lekcji do pliku z media_blobs (licznik odwołań = liczba wierszy dla danego hasha)
+@Entity
+@Table(name = "lesson_media")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LessonMedia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "lesson_id", nullable = false)
+    private Long lessonId;
+
+    @Column(name = "blob_hash", nullable = false, length = 64)
+    private String blobHash;
+}
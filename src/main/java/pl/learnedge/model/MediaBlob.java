@@ -0,0 +1,34 @@
+package pl.learnedge.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Plik multimedialny zapisany raz na treść (klucz: SHA-256), współdzielony przez lekcje
+@Entity
+@Table(name = "media_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, length = 10)
+    private String extension;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Odświeżane przy każdym ponownym użyciu - sprzątanie pomija świeżo użyte pliki
+    @Column(name = "last_used_at", nullable = false)
+    private LocalDateTime lastUsedAt;
+}
@@ -19,9 +19,17 @@ import java.util.List;
 @Builder
 public class User implements UserDetails {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_id")
+    @TableGenerator(name = "users_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "users", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
+    // Podbijana przy każdym zapisie; UserPrincipal z inną wersją jest nieaktualny (PrincipalRefreshFilter)
+    @Version
+    private Long version;
+
     @Column(unique = true, nullable = false, length = 100)
     private String username;
 
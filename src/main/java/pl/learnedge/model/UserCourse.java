@@ -13,7 +13,10 @@ import lombok.*;
 public class UserCourse {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_course_id")
+    @TableGenerator(name = "user_course_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "user_course", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -25,4 +28,7 @@ public class UserCourse {
     private User user;
 
     private Integer progress;
+
+    @Column(name = "completed_lessons", nullable = false)
+    private int completedLessons;
 }
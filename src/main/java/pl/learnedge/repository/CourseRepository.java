@@ -1,24 +1,148 @@
 package pl.learnedge.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import pl.learnedge.dto.CourseCardDto;
+import pl.learnedge.dto.CourseSlug;
+import pl.learnedge.dto.CourseVersion;
 import pl.learnedge.model.Course;
-import pl.learnedge.model.UserCourse;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
 
+    // Katalog kursów, na które użytkownik nie jest zapisany: anti-join + keyset po (difficulty, name, id).
+    // Kursy bez poziomu są na początku (NULLS FIRST - domyślna kolejność MySQL i H2, więc indeks nadal działa)
     @Query("""
-    SELECT c FROM Course c
-    WHERE c.id NOT IN (
-        SELECT uc.course.id FROM UserCourse uc WHERE uc.user.id = :userId
-    )
+    SELECT new pl.learnedge.dto.CourseCardDto(c.id, c.name, c.summary, c.difficulty, c.slug)
+    FROM Course c
+    LEFT JOIN UserCourse uc ON uc.course.id = c.id AND uc.user.id = :userId
+    WHERE uc.id IS NULL
+    ORDER BY c.difficulty NULLS FIRST, c.name, c.id
 """)
-    List<Course> findAllCoursesNotEnrolledByUser(@Param("userId") Long userId);
+    List<CourseCardDto> findAvailableCourses(@Param("userId") Long userId, Limit limit);
+
+    @Query("""
+    SELECT new pl.learnedge.dto.CourseCardDto(c.id, c.name, c.summary, c.difficulty, c.slug)
+    FROM Course c
+    LEFT JOIN UserCourse uc ON uc.course.id = c.id AND uc.user.id = :userId
+    WHERE uc.id IS NULL
+      AND (c.difficulty > :difficulty
+        OR (c.difficulty = :difficulty AND (c.name > :name OR (c.name = :name AND c.id > :id))))
+    ORDER BY c.difficulty NULLS FIRST, c.name, c.id
+""")
+    List<CourseCardDto> findAvailableCoursesAfter(@Param("userId") Long userId,
+                                                  @Param("difficulty") String difficulty,
+                                                  @Param("name") String name,
+                                                  @Param("id") Long id,
+                                                  Limit limit);
+
+    // Kursor na kursie bez poziomu: pozostałe kursy bez poziomu, potem wszystkie z poziomem
+    @Query("""
+    SELECT new pl.learnedge.dto.CourseCardDto(c.id, c.name, c.summary, c.difficulty, c.slug)
+    FROM Course c
+    LEFT JOIN UserCourse uc ON uc.course.id = c.id AND uc.user.id = :userId
+    WHERE uc.id IS NULL
+      AND (c.difficulty IS NOT NULL
+        OR (c.difficulty IS NULL AND (c.name > :name OR (c.name = :name AND c.id > :id))))
+    ORDER BY c.difficulty NULLS FIRST, c.name, c.id
+""")
+    List<CourseCardDto> findAvailableCoursesWithoutDifficultyAfter(@Param("userId") Long userId,
+                                                                   @Param("name") String name,
+                                                                   @Param("id") Long id,
+                                                                   Limit limit);
+
+    @Query("""
+    SELECT new pl.learnedge.dto.CourseCardDto(c.id, c.name, c.summary, c.difficulty, c.slug)
+    FROM Course c
+    LEFT JOIN UserCourse uc ON uc.course.id = c.id AND uc.user.id = :userId
+    WHERE uc.id IS NULL AND c.difficulty = :difficulty
+    ORDER BY c.name, c.id
+""")
+    List<CourseCardDto> findAvailableCoursesByDifficulty(@Param("userId") Long userId,
+                                                         @Param("difficulty") String difficulty,
+                                                         Limit limit);
+
+    @Query("""
+    SELECT new pl.learnedge.dto.CourseCardDto(c.id, c.name, c.summary, c.difficulty, c.slug)
+    FROM Course c
+    LEFT JOIN UserCourse uc ON uc.course.id = c.id AND uc.user.id = :userId
+    WHERE uc.id IS NULL AND c.difficulty = :difficulty
+      AND (c.name > :name OR (c.name = :name AND c.id > :id))
+    ORDER BY c.name, c.id
+""")
+    List<CourseCardDto> findAvailableCoursesByDifficultyAfter(@Param("userId") Long userId,
+                                                              @Param("difficulty") String difficulty,
+                                                              @Param("name") String name,
+                                                              @Param("id") Long id,
+                                                              Limit limit);
+
+    @Query("SELECT DISTINCT c.difficulty FROM Course c WHERE c.difficulty IS NOT NULL ORDER BY c.difficulty")
+    List<String> findAllDifficulties();
 
     Optional<Course> findBySlug(String slug);
+    boolean existsBySlug(String slug);
+
+    // Liczba ukończonych lekcji z licznika na zapisie (user_course.completed_lessons), bez liczenia postępów
+    @Query("""
+    SELECT new pl.learnedge.dto.CourseVersion(c.id, c.contentVersion, c.updatedAt,
+        COALESCE((SELECT MAX(uc.completedLessons) FROM UserCourse uc
+                  WHERE uc.course = c AND uc.user.id = :userId), 0))
+    FROM Course c
+    WHERE c.id = :courseId
+""")
+    Optional<CourseVersion> findVersionById(@Param("courseId") Long courseId, @Param("userId") Long userId);
+
+    @Query("SELECT new pl.learnedge.dto.CourseSlug(c.id, c.slug) FROM Course c ORDER BY c.id")
+    List<CourseSlug> findAllSlugs();
+
+    @Query("SELECT new pl.learnedge.dto.CourseSlug(c.id, c.slug) FROM Course c WHERE c.id = :courseId")
+    Optional<CourseSlug> findSlugById(@Param("courseId") Long courseId);
+
+    // Starsze dane mogą mieć powtórzone slugi - wygrywa najstarszy kurs
+    @Query("SELECT new pl.learnedge.dto.CourseSlug(c.id, c.slug) FROM Course c WHERE c.slug = :slug ORDER BY c.id")
+    List<CourseSlug> findSlugsBySlug(@Param("slug") String slug, Limit limit);
+
+    @Modifying
+    @Query("""
+    UPDATE Course c
+    SET c.lessonCount = c.lessonCount + :delta,
+        c.contentVersion = c.contentVersion + 1,
+        c.updatedAt = LOCAL DATETIME
+    WHERE c.id = :courseId
+""")
+    int adjustLessonCount(@Param("courseId") Long courseId, @Param("delta") int delta);
+
+    // Blokuje wiersz kursu do końca transakcji - szereguje zmiany kolejności lekcji w obrębie kursu
+    @Modifying
+    @Query("""
+    UPDATE Course c
+    SET c.contentVersion = c.contentVersion + 1,
+        c.updatedAt = LOCAL DATETIME
+    WHERE c.id = :courseId
+""")
+    int bumpContentVersion(@Param("courseId") Long courseId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE courses SET last_lesson_rank = last_lesson_rank + :gap WHERE id = :courseId", nativeQuery = true)
+    int advanceLastLessonRank(@Param("courseId") Long courseId, @Param("gap") int gap);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE courses SET last_lesson_rank = :rank WHERE id = :courseId", nativeQuery = true)
+    int setLastLessonRank(@Param("courseId") Long courseId, @Param("rank") int rank);
+
+    @Query(value = "SELECT last_lesson_rank FROM courses WHERE id = :courseId", nativeQuery = true)
+    int findLastLessonRank(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("""
+    UPDATE Course c
+    SET c.lessonCount = (SELECT COUNT(l) FROM Lesson l WHERE l.course.id = c.id)
+    WHERE c.lessonCount <> (SELECT COUNT(l) FROM Lesson l WHERE l.course.id = c.id)
+""")
+    int reconcileLessonCounts();
 }
@@ -0,0 +1,16 @@
+package pl.learnedge.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.learnedge.model.LessonMedia;
+
+public interface LessonMediaRepository extends JpaRepository<LessonMedia, Long> {
+
+    boolean existsByLessonIdAndBlobHash(Long lessonId, String blobHash);
+
+    @Modifying
+    @Query("DELETE FROM LessonMedia lm WHERE lm.lessonId = :lessonId")
+    int deleteAllByLessonId(@Param("lessonId") Long lessonId);
+}
@@ -1,19 +1,28 @@
 package pl.learnedge.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
-import pl.learnedge.model.Lesson;
+import pl.learnedge.dto.LessonCompletion;
 import pl.learnedge.model.LessonProgress;
-import pl.learnedge.model.User;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 public interface LessonProgressRepository extends JpaRepository<LessonProgress, Long> {
-    Optional<LessonProgress> findByLessonAndUser(Lesson lesson, User user);
     @Query("SELECT lp.lesson.id FROM LessonProgress lp WHERE lp.user.id = :userId AND lp.lesson.course.id = :courseId AND lp.completed = true")
     List<Long> findCompletedLessonIdsByCourseIdAndUserId(@Param("courseId") Long courseId, @Param("userId") Long userId);
-    long countByUserIdAndLessonInAndCompletedTrue(Long userId, List<Lesson> lessons);
+    @Query("SELECT lp.lesson.id FROM LessonProgress lp WHERE lp.user.id = :userId AND lp.lesson.id IN :lessonIds AND lp.completed = true")
+    List<Long> findCompletedLessonIdsByUserIdAndLessonIds(@Param("userId") Long userId, @Param("lessonIds") Collection<Long> lessonIds);
+    @Query("""
+    SELECT new pl.learnedge.dto.LessonCompletion(lp.user.id, lp.lesson.id)
+    FROM LessonProgress lp
+    WHERE lp.user.id IN :userIds AND lp.lesson.id IN :lessonIds
+""")
+    List<LessonCompletion> findProgressKeys(@Param("userIds") Collection<Long> userIds, @Param("lessonIds") Collection<Long> lessonIds);
+    @Modifying
+    @Query("DELETE FROM LessonProgress lp WHERE lp.lesson.id = :lessonId")
+    int deleteAllByLessonId(@Param("lessonId") Long lessonId);
 
 }
@@ -1,14 +1,104 @@
 package pl.learnedge.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.learnedge.dto.LessonCourseRef;
+import pl.learnedge.dto.LessonDto;
+import pl.learnedge.dto.LessonSearchSource;
+import pl.learnedge.dto.LessonSlug;
+import pl.learnedge.dto.LessonSummaryDto;
+import pl.learnedge.dto.LessonVersion;
 import pl.learnedge.model.Lesson;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
     List<Lesson> findAllByCourseId(Long courseId);
-    Optional<Lesson> findBySlug(String slug);
-    Optional<Lesson> findTopByCourseIdOrderByLessonOrderDesc(Long courseId);
+    boolean existsByCourseIdAndSlug(Long courseId, String slug);
+
+    @Query("SELECT new pl.learnedge.dto.LessonVersion(l.id, l.contentVersion, l.updatedAt) FROM Lesson l WHERE l.id = :lessonId")
+    Optional<LessonVersion> findVersionById(@Param("lessonId") Long lessonId);
+
+    // Lekcja bez treści - treść (LOB) czytana osobno, tylko gdy wariantu nie ma w cache
+    @Query("SELECT new pl.learnedge.dto.LessonDto(l.id, l.title, l.slug, l.lessonOrder, l.contentVersion) FROM Lesson l WHERE l.id = :lessonId")
+    Optional<LessonDto> findHeaderById(@Param("lessonId") Long lessonId);
+
+    @Query("SELECT l.content FROM Lesson l WHERE l.id = :lessonId")
+    Optional<String> findContentById(@Param("lessonId") Long lessonId);
+
+    @Query("SELECT new pl.learnedge.dto.LessonSlug(l.id, l.course.id, l.slug) FROM Lesson l ORDER BY l.id")
+    List<LessonSlug> findAllSlugs();
+
+    @Query("SELECT new pl.learnedge.dto.LessonSlug(l.id, l.course.id, l.slug) FROM Lesson l WHERE l.id = :lessonId")
+    Optional<LessonSlug> findSlugById(@Param("lessonId") Long lessonId);
+
+    // Korzysta z indeksu (course_id, slug); przy powtórzeniach w starszych danych wygrywa najstarsza lekcja
+    @Query("""
+    SELECT new pl.learnedge.dto.LessonSlug(l.id, l.course.id, l.slug)
+    FROM Lesson l
+    WHERE l.course.id = :courseId AND l.slug = :slug
+    ORDER BY l.id
+""")
+    List<LessonSlug> findSlugsByCourseIdAndSlug(@Param("courseId") Long courseId, @Param("slug") String slug, Limit limit);
+
+    @Query("SELECT l.course.id FROM Lesson l WHERE l.id = :lessonId")
+    Optional<Long> findCourseIdById(@Param("lessonId") Long lessonId);
+
+    @Query("SELECT new pl.learnedge.dto.LessonCourseRef(l.id, l.course.id) FROM Lesson l WHERE l.id IN :lessonIds")
+    List<LessonCourseRef> findCourseRefs(@Param("lessonIds") Collection<Long> lessonIds);
+
+    @Query("SELECT l.lessonOrder FROM Lesson l WHERE l.id = :lessonId AND l.course.id = :courseId")
+    Optional<Integer> findRank(@Param("lessonId") Long lessonId, @Param("courseId") Long courseId);
+
+    // Najmniejsza ranga za podaną, z pominięciem przenoszonej lekcji (null = koniec kursu)
+    @Query("""
+    SELECT MIN(l.lessonOrder)
+    FROM Lesson l
+    WHERE l.course.id = :courseId AND l.lessonOrder > :rank AND l.id <> :lessonId
+""")
+    Integer findNextRank(@Param("courseId") Long courseId, @Param("rank") int rank, @Param("lessonId") Long lessonId);
+
+    @Query("SELECT l.id FROM Lesson l WHERE l.course.id = :courseId ORDER BY l.lessonOrder, l.id")
+    List<Long> findOrderedIdsByCourseId(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("UPDATE Lesson l SET l.lessonOrder = :rank WHERE l.id = :lessonId")
+    int updateRank(@Param("lessonId") Long lessonId, @Param("rank") int rank);
+
+    @Query("""
+    SELECT new pl.learnedge.dto.LessonSummaryDto(l.id, l.title, l.slug, l.lessonOrder)
+    FROM Lesson l
+    WHERE l.course.id = :courseId
+    ORDER BY l.lessonOrder, l.id
+""")
+    List<LessonSummaryDto> findSummariesByCourseId(@Param("courseId") Long courseId, Pageable pageable);
+
+    @Query("""
+    SELECT new pl.learnedge.dto.LessonSearchSource(l.id, l.title, l.content, l.slug, c.name, c.slug)
+    FROM Lesson l JOIN l.course c
+    WHERE l.id > :afterId
+    ORDER BY l.id
+""")
+    List<LessonSearchSource> findSearchSourcesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+    SELECT new pl.learnedge.dto.LessonSearchSource(l.id, l.title, l.content, l.slug, c.name, c.slug)
+    FROM Lesson l JOIN l.course c
+    WHERE l.id = :lessonId
+""")
+    Optional<LessonSearchSource> findSearchSourceById(@Param("lessonId") Long lessonId);
+
+    @Query("""
+    SELECT new pl.learnedge.dto.LessonSearchSource(l.id, l.title, l.content, l.slug, c.name, c.slug)
+    FROM Lesson l JOIN l.course c
+    WHERE c.id = :courseId
+""")
+    List<LessonSearchSource> findSearchSourcesByCourseId(@Param("courseId") Long courseId);
 
 }
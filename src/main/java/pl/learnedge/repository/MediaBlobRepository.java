@@ -0,0 +1,41 @@
+package pl.learnedge.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.learnedge.model.MediaBlob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+
+    // SELECT ... FOR UPDATE po kluczu - każda zmiana pliku na dysku odbywa się pod tą blokadą (patrz MediaStore)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM MediaBlob b WHERE b.hash = :hash")
+    Optional<MediaBlob> findByHashForUpdate(@Param("hash") String hash);
+
+    @Query("""
+    SELECT b FROM MediaBlob b
+    WHERE b.lastUsedAt < :cutoff
+      AND NOT EXISTS (SELECT lm.id FROM LessonMedia lm WHERE lm.blobHash = b.hash)
+    ORDER BY b.lastUsedAt
+""")
+    List<MediaBlob> findUnreferencedBefore(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    // Warunki powtórzone w DELETE - blob użyty ponownie od czasu wyszukania nie zostanie usunięty.
+    // Czyści kontekst utrwalania, żeby zablokowana wcześniej encja nie przetrwała usunięcia wiersza.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+    DELETE FROM MediaBlob b
+    WHERE b.hash = :hash
+      AND b.lastUsedAt < :cutoff
+      AND NOT EXISTS (SELECT lm.id FROM LessonMedia lm WHERE lm.blobHash = b.hash)
+""")
+    int deleteIfUnreferenced(@Param("hash") String hash, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,12 +1,84 @@
 package pl.learnedge.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.learnedge.dto.CourseProgress;
+import pl.learnedge.dto.CourseProgressSummary;
 import pl.learnedge.model.UserCourse;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface UserCourseRepository extends JpaRepository<UserCourse, Long> {
     List<UserCourse> findAllByUserId(Long userId);
     boolean existsByUserIdAndCourseId(Long userId, Long courseId);
 
+    @Query("""
+    SELECT new pl.learnedge.dto.CourseProgressSummary(
+        c.id, c.name, c.description, c.difficulty, c.slug, c.lessonCount, uc.completedLessons
+    )
+    FROM UserCourse uc JOIN uc.course c
+    WHERE uc.user.id = :userId
+    ORDER BY uc.id
+""")
+    List<CourseProgressSummary> findProgressSummariesByUserId(@Param("userId") Long userId);
+
+    @Query("""
+    SELECT new pl.learnedge.dto.CourseProgress(c.id, c.slug, uc.completedLessons, c.lessonCount, COALESCE(uc.progress, 0))
+    FROM UserCourse uc JOIN uc.course c
+    WHERE uc.user.id = :userId AND c.id IN :courseIds
+    ORDER BY c.id
+""")
+    List<CourseProgress> findCourseProgress(@Param("userId") Long userId, @Param("courseIds") Collection<Long> courseIds);
+
+    @Modifying
+    @Query("""
+    UPDATE UserCourse uc
+    SET uc.completedLessons = uc.completedLessons - 1
+    WHERE uc.course.id = :courseId
+      AND uc.user.id IN (
+        SELECT lp.user.id FROM LessonProgress lp WHERE lp.lesson.id = :lessonId AND lp.completed = true
+      )
+""")
+    int decrementCompletedLessonsForLesson(@Param("courseId") Long courseId, @Param("lessonId") Long lessonId);
+
+    @Modifying
+    @Query("""
+    UPDATE UserCourse uc
+    SET uc.progress = COALESCE(FLOOR(uc.completedLessons * 100 / NULLIF(
+            (SELECT c.lessonCount FROM Course c WHERE c.id = :courseId), 0)), 0)
+    WHERE uc.course.id = :courseId
+""")
+    int recalculateProgressForCourse(@Param("courseId") Long courseId);
+
+    @Query("SELECT MAX(uc.id) FROM UserCourse uc")
+    Optional<Long> findMaxId();
+
+    @Modifying
+    @Query("""
+    UPDATE UserCourse uc
+    SET uc.completedLessons = (
+        SELECT COUNT(lp) FROM LessonProgress lp
+        WHERE lp.user.id = uc.user.id AND lp.completed = true AND lp.lesson.course.id = uc.course.id
+    )
+    WHERE uc.id > :fromId AND uc.id <= :toId
+      AND uc.completedLessons <> (
+        SELECT COUNT(lp) FROM LessonProgress lp
+        WHERE lp.user.id = uc.user.id AND lp.completed = true AND lp.lesson.course.id = uc.course.id
+      )
+""")
+    int reconcileCompletedLessons(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Modifying
+    @Query("""
+    UPDATE UserCourse uc
+    SET uc.progress = COALESCE(FLOOR(uc.completedLessons * 100 / NULLIF(
+            (SELECT c.lessonCount FROM Course c WHERE c.id = uc.course.id), 0)), 0)
+    WHERE uc.id > :fromId AND uc.id <= :toId
+""")
+    int reconcileProgress(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
 }
@@ -1,9 +1,18 @@
 package pl.learnedge.service;
 
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import pl.learnedge.dto.CurrentUser;
+import pl.learnedge.dto.UserPrincipal;
 import pl.learnedge.model.User;
 import pl.learnedge.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -12,31 +21,62 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class AuthService {
     private final UserRepository userRepository;
+    private final SecurityContextRepository securityContextRepository = new HttpSessionSecurityContextRepository();
 
-    public User getCurrentUser() {
+    // Id, rola i styl zalogowanego użytkownika prosto z UserPrincipal, bez zapytań;
+    // principal po zmianie konta podmienia PrincipalRefreshFilter
+    public CurrentUser getCurrentUserContext() {
+        return CurrentUser.from(getCurrentPrincipal());
+    }
+
+    private static Authentication requireAuthentication() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new IllegalStateException("Użytkownik nie jest zalogowany");
         }
-        Object principal = authentication.getPrincipal();
-        
-        if (principal instanceof User user) {
-            return user;
-        }
-        
-        if (principal instanceof DefaultOidcUser oidcUser) {
-            String email = oidcUser.getEmail();
-            // ZMIANA: Zamiast tylko orElseGet, używamy mapowania, żeby zaktualizować istniejącego
-            return userRepository.findByEmail(email)
-                    .map(existingUser -> updateExistingUser(existingUser, oidcUser)) // Aktualizuj jeśli istnieje
-                    .orElseGet(() -> registerNewGoogleUser(oidcUser)); // Stwórz jeśli nowy
+        return authentication;
+    }
+
+    public UserPrincipal getCurrentPrincipal() {
+        Object principal = requireAuthentication().getPrincipal();
+        if (principal instanceof UserPrincipal userPrincipal) {
+            return userPrincipal;
         }
-        
         throw new IllegalStateException("Nieznany typ użytkownika: " + principal.getClass().getName());
     }
 
+    // Encja tylko tam, gdzie jest naprawdę potrzebna (formularz profilu, zmiana hasła)
+    public User getCurrentUser() {
+        Long userId = getCurrentPrincipal().id();
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalStateException("Nie znaleziono użytkownika: " + userId));
+    }
+
+    // Logowanie przez Google: w kontekście zostaje konto z bazy (zakładane przy pierwszym logowaniu),
+    // a nie DefaultOidcUser z tokenem i atrybutami
+    @Transactional
+    public void signIn(OidcUser oidcUser) {
+        String email = oidcUser.getEmail();
+        User user = userRepository.findByEmail(email)
+                .map(existingUser -> updateExistingUser(existingUser, oidcUser)) // Aktualizuj jeśli istnieje
+                .orElseGet(() -> registerNewGoogleUser(oidcUser)); // Stwórz jeśli nowy
+        refreshPrincipal(user);
+    }
+
+    // Podmienia principal po zmianie danych użytkownika; kontekst trzeba zapisać w sesji jawnie
+    public void refreshPrincipal(User user) {
+        UserPrincipal principal = UserPrincipal.from(user);
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, principal.authorities()));
+        SecurityContextHolder.setContext(context);
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes servlet) {
+            securityContextRepository.saveContext(context, servlet.getRequest(), servlet.getResponse());
+        }
+    }
+
     // Nowa metoda do aktualizacji danych przy logowaniu
-    private User updateExistingUser(User user, DefaultOidcUser oidcUser) {
+    private User updateExistingUser(User user, OidcUser oidcUser) {
         boolean changed = false;
 
         // Pobierz URL zdjęcia z Google
@@ -57,7 +97,7 @@ public class AuthService {
         return changed ? userRepository.save(user) : user;
     }
 
-    private User registerNewGoogleUser(DefaultOidcUser oidcUser) {
+    private User registerNewGoogleUser(OidcUser oidcUser) {
         User newUser = new User();
         String email = oidcUser.getEmail();
         newUser.setEmail(email);
@@ -88,6 +128,6 @@ public class AuthService {
     }
 
     public Long getCurrentUserId() {
-        return getCurrentUser().getId();
+        return getCurrentUserContext().id();
     }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package pl.learnedge.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+import pl.learnedge.dto.CacheStats;
+import pl.learnedge.dto.CourseDto;
+import pl.learnedge.event.CourseChangedEvent;
+import pl.learnedge.mapper.CourseMapper;
+import pl.learnedge.model.Course;
+import pl.learnedge.repository.CourseRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache katalogu kursów w pamięci procesu.
+// Odczyt to jedno przeczytanie niemutowalnej migawki (volatile) bez blokad. Zdarzenie po commicie
+// przy utworzeniu/edycji kursu oznacza kurs jako zmieniony; następny odczyt doczytuje tylko zmienione
+// kursy i podmienia migawkę. Doczytuje zawsze jeden wątek, pozostałe czekają na jego wynik.
+// Katalog większy niż app.cache.catalog.max-size nie jest trzymany w pamięci: migawka jest porzucana
+// (jedno wyrzucenie), a odczyty idą wprost do bazy, bez blokady. Ponowna próba zbudowania migawki
+// następuje dopiero po zmianie któregoś kursu.
+@Component
+public class CourseCatalogCache {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    private record Snapshot(List<CourseDto> courses, long weightBytes) {
+    }
+
+    private final CourseRepository courseRepository;
+    private final CourseMapper courseMapper;
+
+    private final long maxWeightBytes;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean oversized;
+    private final Set<Long> changedIds = ConcurrentHashMap.newKeySet();
+    private final Object reloadLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CourseCatalogCache(CourseRepository courseRepository,
+                              CourseMapper courseMapper,
+                              @Value("${app.cache.catalog.max-size:8MB}") DataSize maxSize) {
+        this.courseRepository = courseRepository;
+        this.courseMapper = courseMapper;
+        this.maxWeightBytes = maxSize.toBytes();
+    }
+
+    public List<CourseDto> getCatalog() {
+        Snapshot current = snapshot;
+        if (current != null && changedIds.isEmpty()) {
+            hits.increment();
+        } else if (current == null && oversized && changedIds.isEmpty()) {
+            misses.increment();
+            return loadAll();
+        } else {
+            current = reload();
+        }
+        List<CourseDto> result = new ArrayList<>(current.courses().size());
+        for (CourseDto dto : current.courses()) {
+            result.add(copy(dto));
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        changedIds.add(event.courseId());
+    }
+
+    public CacheStats stats() {
+        Snapshot current = snapshot;
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(),
+                current != null ? current.courses().size() : 0,
+                current != null ? current.weightBytes() : 0, maxWeightBytes);
+    }
+
+    private Snapshot reload() {
+        synchronized (reloadLock) {
+            Snapshot current = snapshot;
+            if (current != null && changedIds.isEmpty()) {
+                hits.increment();
+                return current;
+            }
+            // Zmiany zgłoszone w trakcie zapytania zostają w changedIds na następny odczyt
+            List<Long> changed = new ArrayList<>(changedIds);
+            changedIds.removeAll(changed);
+
+            Snapshot loaded;
+            if (current == null) {
+                misses.increment();
+                loaded = build(loadAll());
+            } else {
+                misses.add(changed.size());
+                loaded = merge(current, changed);
+            }
+
+            if (loaded.weightBytes() > maxWeightBytes) {
+                if (!oversized) evictions.increment();
+                oversized = true;
+                snapshot = null;
+            } else {
+                oversized = false;
+                snapshot = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    private List<CourseDto> loadAll() {
+        List<CourseDto> courses = new ArrayList<>();
+        for (Course course : courseRepository.findAll(Sort.by("id"))) {
+            courses.add(courseMapper.toDto(course));
+        }
+        return courses;
+    }
+
+    // Podmienia zmienione kursy w kopii migawki; kurs, którego już nie ma w bazie, wypada z katalogu
+    private Snapshot merge(Snapshot current, List<Long> changed) {
+        Map<Long, CourseDto> courses = new TreeMap<>();
+        for (CourseDto dto : current.courses()) {
+            courses.put(dto.getId(), dto);
+        }
+        changed.forEach(courses::remove);
+        for (Course course : courseRepository.findAllById(changed)) {
+            courses.put(course.getId(), courseMapper.toDto(course));
+        }
+        return build(new ArrayList<>(courses.values()));
+    }
+
+    private static Snapshot build(List<CourseDto> courses) {
+        long weight = 0;
+        for (CourseDto dto : courses) {
+            weight += weigh(dto);
+        }
+        return new Snapshot(List.copyOf(courses), weight);
+    }
+
+    private static long weigh(CourseDto dto) {
+        return ENTRY_OVERHEAD_BYTES + 2L * (length(dto.getName()) + length(dto.getDescription())
+                + length(dto.getDifficulty()) + length(dto.getSlug()));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static CourseDto copy(CourseDto dto) {
+        return dto.toBuilder().build();
+    }
+}
@@ -0,0 +1,460 @@
+package pl.learnedge.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import pl.learnedge.dto.CourseImportManifest;
+import pl.learnedge.dto.CourseImportStatus;
+import pl.learnedge.dto.StoredMedia;
+import pl.learnedge.event.CourseChangedEvent;
+import pl.learnedge.event.ImageUploadedEvent;
+import pl.learnedge.event.LessonChangedEvent;
+import pl.learnedge.model.Course;
+import pl.learnedge.model.Lesson;
+import pl.learnedge.repository.CourseRepository;
+import pl.learnedge.repository.LessonRepository;
+import pl.learnedge.util.LessonHtmlRewriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Import całego kursu z paczki zip: manifest.json (pierwszy wpis), pliki HTML lekcji i multimedia.
+// Archiwum czytane jest strumieniowo wpis po wpisie, bez buforowania całości w pamięci.
+// Multimedia zapisywane są do magazynu treści równolegle z dalszym czytaniem archiwum,
+// a kurs, lekcje (paczkami INSERT-ów) i powiązania z plikami trafiają do bazy w jednej transakcji.
+@Service
+@Slf4j
+public class CourseImportService {
+
+    private static final String MANIFEST = "manifest.json";
+    private static final int LESSON_BATCH_SIZE = 50;
+    private static final int MAX_RECENT_IMPORTS = 20;
+
+    // Mniejsze pliki czytane są do pamięci i zapisywane w tle; większe zapisuje wątek czytający archiwum
+    private static final int MAX_BUFFERED_MEDIA_BYTES = 4 * 1024 * 1024;
+
+    private static final Set<String> MEDIA_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "mp3", "m4a", "ogg", "wav", "mp4", "webm");
+    // Formaty, dla których ImageDerivativeService tworzy pomniejszone warianty
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png");
+
+    private static final String INSERT_LESSON_MEDIA = "INSERT INTO lesson_media (lesson_id, blob_hash) VALUES (?, ?)";
+
+    private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+    private final SlugService slugService;
+    private final SlugRegistry slugRegistry;
+    private final MediaStore mediaStore;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor mediaWriters;
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final Map<String, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+            return size() > MAX_RECENT_IMPORTS;
+        }
+    };
+
+    public CourseImportService(CourseRepository courseRepository,
+                               LessonRepository lessonRepository,
+                               SlugService slugService,
+                               SlugRegistry slugRegistry,
+                               MediaStore mediaStore,
+                               ImageDerivativeService imageDerivativeService,
+                               ApplicationEventPublisher eventPublisher,
+                               JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.import.workers:4}") int workers,
+                               @Value("${app.import.max-entries:10000}") int maxEntries,
+                               @Value("${app.import.max-size:2GB}") DataSize maxSize) {
+        this.courseRepository = courseRepository;
+        this.lessonRepository = lessonRepository;
+        this.slugService = slugService;
+        this.slugRegistry = slugRegistry;
+        this.mediaStore = mediaStore;
+        this.imageDerivativeService = imageDerivativeService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxSize.toBytes();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Krótka kolejka + CallerRunsPolicy: gdy zapis nie nadąża, wątek czytający sam zapisuje plik
+        // zamiast trzymać w pamięci kolejne bufory
+        this.mediaWriters = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workers * 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "course-import-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.mediaWriters.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        mediaWriters.shutdownNow();
+    }
+
+    // Nieudany import kończy się statusem FAILED z opisem błędu; zapisane pliki są wtedy usuwane
+    public CourseImportStatus importCourse(InputStream body) {
+        Job job = new Job();
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+
+        Package contents = new Package();
+        try {
+            read(body, contents, job);
+            Map<String, MediaStore.WrittenBlob> media = awaitMedia(contents);
+
+            job.phase = "SAVING";
+            job.lessonsTotal = contents.manifest.lessons().size();
+            Long courseId = transactionTemplate.execute(status -> save(contents, media, job));
+
+            job.phase = "DONE";
+            job.finishedAt = LocalDateTime.now();
+            log.info("Imported course {} ({} lessons, {} media files) in {} ms", courseId, job.lessonsTotal,
+                    media.size(), Duration.between(job.startedAt, job.finishedAt).toMillis());
+            return job.status();
+        } catch (RuntimeException e) {
+            discardMedia(contents);
+            job.phase = "FAILED";
+            job.error = e.getMessage();
+            job.finishedAt = LocalDateTime.now();
+            log.warn("Course import {} failed: {}", job.id, e.getMessage());
+            return job.status();
+        }
+    }
+
+    public List<CourseImportStatus> getRecentImports() {
+        synchronized (jobs) {
+            List<CourseImportStatus> statuses = new ArrayList<>(jobs.size());
+            jobs.values().forEach(job -> statuses.add(job.status()));
+            Collections.reverse(statuses);
+            return statuses;
+        }
+    }
+
+    public Optional<CourseImportStatus> getImport(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id)).map(Job::status);
+        }
+    }
+
+    private void read(InputStream body, Package contents, Job job) {
+        try (ZipInputStream zip = new ZipInputStream(body, StandardCharsets.UTF_8)) {
+            // Limit liczony po rozpakowaniu - chroni przed "bombami" zip. Każdy wpis jest doczytywany
+            // do końca przez licznik, także pominięty (inaczej getNextEntry rozpakuje go poza limitem).
+            InputStream data = new CountingInputStream(zip, job);
+            Set<String> lessonFiles = Set.of();
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (++job.entriesRead > maxEntries) {
+                    throw new RuntimeException("Archiwum zawiera zbyt wiele plików (limit " + maxEntries + ")");
+                }
+                String name = normalizeEntryName(entry.getName());
+
+                if (entry.isDirectory()) {
+                    // Katalog nie ma treści; ewentualne dane i tak przejdą przez licznik niżej
+                } else if (contents.manifest == null) {
+                    if (!name.equals(MANIFEST)) {
+                        throw new RuntimeException("Plik " + MANIFEST + " musi być pierwszym wpisem archiwum");
+                    }
+                    contents.manifest = readManifest(data.readAllBytes());
+                    lessonFiles = new HashSet<>();
+                    for (CourseImportManifest.Lesson lesson : contents.manifest.lessons()) {
+                        lessonFiles.add(normalizeEntryName(lesson.file()));
+                    }
+                } else if (lessonFiles.contains(name)) {
+                    contents.lessonHtml.put(name, new String(data.readAllBytes(), StandardCharsets.UTF_8));
+                } else if (MEDIA_EXTENSIONS.contains(extensionOf(name))) {
+                    submitMedia(fileName(name), data, contents, job);
+                } else {
+                    log.debug("Skipping unsupported import entry {}", name);
+                }
+                data.transferTo(OutputStream.nullOutputStream());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Nie udało się odczytać archiwum kursu: " + e.getMessage(), e);
+        }
+        if (contents.manifest == null) {
+            throw new RuntimeException("Archiwum nie zawiera pliku " + MANIFEST);
+        }
+    }
+
+    private void submitMedia(String fileName, InputStream data, Package contents, Job job) throws IOException {
+        if (contents.media.containsKey(fileName)) {
+            throw new RuntimeException("Nazwa pliku multimediów powtarza się w archiwum: " + fileName);
+        }
+        byte[] head = data.readNBytes(MAX_BUFFERED_MEDIA_BYTES + 1);
+        Future<MediaStore.WrittenBlob> future;
+        if (head.length <= MAX_BUFFERED_MEDIA_BYTES) {
+            future = mediaWriters.submit(() -> {
+                MediaStore.WrittenBlob written = mediaStore.write(new ByteArrayInputStream(head), fileName);
+                job.mediaStored.incrementAndGet();
+                return written;
+            });
+        } else {
+            // Duży plik: reszta wpisu czytana prosto z archiwum, bez pełnego bufora
+            MediaStore.WrittenBlob written = mediaStore.write(
+                    new SequenceInputStream(new ByteArrayInputStream(head), data), fileName);
+            job.mediaStored.incrementAndGet();
+            future = CompletableFuture.completedFuture(written);
+        }
+        contents.media.put(fileName, future);
+    }
+
+    private Map<String, MediaStore.WrittenBlob> awaitMedia(Package contents) {
+        Map<String, MediaStore.WrittenBlob> media = new HashMap<>();
+        RuntimeException failure = null;
+        for (Map.Entry<String, Future<MediaStore.WrittenBlob>> entry : contents.media.entrySet()) {
+            try {
+                media.put(entry.getKey(), entry.getValue().get());
+            } catch (ExecutionException e) {
+                if (failure == null) failure = new RuntimeException("Błąd przy zapisie pliku: " + entry.getKey(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) failure = new RuntimeException("Import kursu został przerwany", e);
+            }
+        }
+        if (failure != null) throw failure;
+        return media;
+    }
+
+    private Long save(Package contents, Map<String, MediaStore.WrittenBlob> media, Job job) {
+        CourseImportManifest manifest = contents.manifest;
+        String courseSlug = slugRegistry.reserveCourseSlug(slugService.generateSlug(manifest.name()));
+
+        Course course = new Course();
+        course.setName(manifest.name());
+        course.setDescription(manifest.description() != null ? manifest.description() : "");
+        course.setDifficulty(manifest.difficulty());
+        course.setSlug(courseSlug);
+        course.setLessonCount(manifest.lessons().size());
+        course.setLastLessonRank(manifest.lessons().size() * LessonOrderingService.RANK_GAP);
+        course = courseRepository.saveAndFlush(course);
+        Long courseId = course.getId();
+        job.courseSlug = courseSlug;
+
+        // Nazwa pliku w archiwum -> adres w magazynie treści
+        Map<String, LessonHtmlRewriter.Asset> assets = new HashMap<>();
+        Map<String, String> hashByUrl = new HashMap<>();
+        List<Path> images = new ArrayList<>();
+        for (Map.Entry<String, MediaStore.WrittenBlob> entry : media.entrySet()) {
+            StoredMedia stored = mediaStore.register(entry.getValue());
+            String srcset = null;
+            if (IMAGE_EXTENSIONS.contains(extensionOf(entry.getKey()))) {
+                srcset = imageDerivativeService.lessonSrcset(stored.path(), stored.url());
+                images.add(stored.path());
+            }
+            assets.put(entry.getKey(), new LessonHtmlRewriter.Asset(stored.url(), srcset,
+                    srcset != null ? LessonService.LESSON_IMAGE_SIZES : null));
+            hashByUrl.put(stored.url(), stored.hash());
+        }
+
+        List<Lesson> lessons = new ArrayList<>(manifest.lessons().size());
+        List<Set<String>> lessonBlobs = new ArrayList<>(manifest.lessons().size());
+        Iterator<String> slug = uniqueLessonSlugs(manifest.lessons()).iterator();
+        int order = 0;
+        for (CourseImportManifest.Lesson lesson : manifest.lessons()) {
+            String html = contents.lessonHtml.get(normalizeEntryName(lesson.file()));
+            if (html == null) {
+                throw new RuntimeException("Brak pliku lekcji w archiwum: " + lesson.file());
+            }
+            Set<String> hashes = new HashSet<>();
+            String content = LessonHtmlRewriter.rewrite(html, assets, asset -> hashes.add(hashByUrl.get(asset.url())));
+            lessons.add(Lesson.builder()
+                    .title(lesson.title())
+                    .content(content)
+                    .lessonOrder(++order * LessonOrderingService.RANK_GAP)
+                    .slug(slug.next())
+                    .course(course)
+                    .build());
+            lessonBlobs.add(hashes);
+        }
+
+        // Id z puli id_generators, więc Hibernate wysyła INSERT-y paczkami hibernate.jdbc.batch_size
+        for (int from = 0; from < lessons.size(); from += LESSON_BATCH_SIZE) {
+            List<Lesson> batch = lessons.subList(from, Math.min(from + LESSON_BATCH_SIZE, lessons.size()));
+            lessonRepository.saveAll(batch);
+            lessonRepository.flush();
+            job.lessonsSaved += batch.size();
+        }
+
+        List<Object[]> links = new ArrayList<>();
+        for (int i = 0; i < lessons.size(); i++) {
+            Long lessonId = lessons.get(i).getId();
+            lessonBlobs.get(i).forEach(hash -> links.add(new Object[]{lessonId, hash}));
+            eventPublisher.publishEvent(new LessonChangedEvent(lessonId, courseId));
+        }
+        if (!links.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LESSON_MEDIA, links);
+        }
+
+        eventPublisher.publishEvent(new CourseChangedEvent(courseId));
+        if (!images.isEmpty()) {
+            eventPublisher.publishEvent(new ImageUploadedEvent(images, ImageUploadedEvent.Kind.LESSON_IMAGE));
+        }
+        return courseId;
+    }
+
+    // Slugi lekcji w kolejności manifestu; kurs jest nowy, więc wystarczy usunąć powtórzenia w paczce
+    private Set<String> uniqueLessonSlugs(List<CourseImportManifest.Lesson> lessons) {
+        Set<String> slugs = new LinkedHashSet<>();
+        for (CourseImportManifest.Lesson lesson : lessons) {
+            String base = slugService.generateSlug(lesson.title());
+            if (base.isBlank()) base = "lekcja";
+            String candidate = base;
+            for (int suffix = 2; !slugs.add(candidate); suffix++) {
+                candidate = base + "-" + suffix;
+            }
+        }
+        return slugs;
+    }
+
+    private CourseImportManifest readManifest(byte[] json) {
+        try {
+            CourseImportManifest manifest = objectMapper.readerFor(CourseImportManifest.class)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(json);
+            if (manifest.name() == null || manifest.lessons() == null || manifest.lessons().isEmpty()) {
+                throw new RuntimeException("Manifest musi zawierać nazwę kursu i listę lekcji");
+            }
+            for (CourseImportManifest.Lesson lesson : manifest.lessons()) {
+                if (lesson.title() == null || lesson.file() == null) {
+                    throw new RuntimeException("Każda lekcja w manifeście musi mieć tytuł i plik");
+                }
+            }
+            return manifest;
+        } catch (IOException e) {
+            throw new RuntimeException("Niepoprawny plik " + MANIFEST + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Pliki tymczasowe nieudanego importu; pliki już przeniesione do media/ sprząta wycofanie transakcji
+    private void discardMedia(Package contents) {
+        for (Future<MediaStore.WrittenBlob> future : contents.media.values()) {
+            try {
+                mediaStore.discard(future.get());
+            } catch (ExecutionException e) {
+                // Ten plik nie został zapisany
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static String normalizeEntryName(String name) {
+        String normalized = name.replace('\\', '/');
+        while (normalized.startsWith("./") || normalized.startsWith("/")) {
+            normalized = normalized.substring(normalized.startsWith("/") ? 1 : 2);
+        }
+        return normalized;
+    }
+
+    private static String fileName(String entryName) {
+        return entryName.substring(entryName.lastIndexOf('/') + 1);
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static final class Package {
+        private CourseImportManifest manifest;
+        private final Map<String, String> lessonHtml = new HashMap<>();
+        private final Map<String, Future<MediaStore.WrittenBlob>> media = new LinkedHashMap<>();
+    }
+
+    private static final class Job {
+        private final String id = UUID.randomUUID().toString();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicInteger mediaStored = new AtomicInteger();
+        private volatile String phase = "READING";
+        private volatile String courseSlug;
+        private volatile int entriesRead;
+        private volatile int lessonsTotal;
+        private volatile int lessonsSaved;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private CourseImportStatus status() {
+            return new CourseImportStatus(id, phase, courseSlug, bytesRead.get(), entriesRead, mediaStored.get(),
+                    lessonsTotal, lessonsSaved, error, startedAt.toString(),
+                    finishedAt != null ? finishedAt.toString() : null);
+        }
+    }
+
+    // Liczy rozpakowane bajty (postęp) i przerywa import po przekroczeniu limitu rozmiaru paczki
+    private final class CountingInputStream extends FilterInputStream {
+        private final Job job;
+
+        private CountingInputStream(InputStream in, Job job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            if (skipped > 0) count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws IOException {
+            if (job.bytesRead.addAndGet(n) > maxBytes) {
+                throw new IOException("paczka przekracza limit " + DataSize.ofBytes(maxBytes).toMegabytes() + " MB");
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package pl.learnedge.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.learnedge.dto.LessonSearchSource;
+import pl.learnedge.event.CourseChangedEvent;
+import pl.learnedge.event.LessonChangedEvent;
+import pl.learnedge.model.Course;
+import pl.learnedge.repository.CourseRepository;
+import pl.learnedge.repository.LessonRepository;
+import pl.learnedge.service.SearchIndex.DocumentType;
+import pl.learnedge.util.SearchText;
+
+import java.util.List;
+
+// Wyszukiwarka kursów i lekcji oparta o SearchIndex.
+// Indeks budowany jest przy starcie aplikacji i aktualizowany przyrostowo zdarzeniami po zapisie.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourseSearchService {
+
+    private static final int REBUILD_BATCH_SIZE = 100;
+
+    private static final float COURSE_NAME_BOOST = 3.0f;
+    private static final float LESSON_TITLE_BOOST = 2.5f;
+    private static final float BODY_BOOST = 1.0f;
+
+    private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+    private final SearchIndex index = new SearchIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        index.clear();
+        courseRepository.findAll().forEach(this::indexCourse);
+
+        Long afterId = 0L;
+        List<LessonSearchSource> batch;
+        do {
+            batch = lessonRepository.findSearchSourcesAfter(afterId, Limit.of(REBUILD_BATCH_SIZE));
+            batch.forEach(this::indexLesson);
+            if (!batch.isEmpty()) afterId = batch.get(batch.size() - 1).id();
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+
+        log.info("Search index built: {} documents in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        courseRepository.findById(event.courseId()).ifPresentOrElse(
+                this::indexCourse,
+                () -> index.remove(DocumentType.COURSE, event.courseId()));
+        // Lekcje pokazują nazwę kursu w wynikach
+        lessonRepository.findSearchSourcesByCourseId(event.courseId()).forEach(this::indexLesson);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLessonChanged(LessonChangedEvent event) {
+        lessonRepository.findSearchSourceById(event.lessonId()).ifPresentOrElse(
+                this::indexLesson,
+                () -> index.remove(DocumentType.LESSON, event.lessonId()));
+    }
+
+    public List<SearchIndex.Hit> search(String query, int limit) {
+        return index.search(query, limit);
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        return index.suggest(prefix, limit);
+    }
+
+    private void indexCourse(Course course) {
+        index.put(
+                new SearchIndex.Document(DocumentType.COURSE, course.getId(), course.getName(),
+                        "/kurs/" + course.getSlug(), course.getDifficulty()),
+                List.of(new SearchIndex.Field(course.getName(), COURSE_NAME_BOOST),
+                        new SearchIndex.Field(course.getDescription(), BODY_BOOST)));
+    }
+
+    private void indexLesson(LessonSearchSource lesson) {
+        index.put(
+                new SearchIndex.Document(DocumentType.LESSON, lesson.id(), lesson.title(),
+                        "/kurs/" + lesson.courseSlug() + "/" + lesson.slug(), lesson.courseName()),
+                List.of(new SearchIndex.Field(lesson.title(), LESSON_TITLE_BOOST),
+                        new SearchIndex.Field(SearchText.stripTags(lesson.content()), BODY_BOOST)));
+    }
+}
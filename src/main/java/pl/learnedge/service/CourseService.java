@@ -1,90 +1,119 @@
 package pl.learnedge.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pl.learnedge.dto.CacheStats;
+import pl.learnedge.dto.CourseCardDto;
+import pl.learnedge.dto.CourseCursor;
 import pl.learnedge.dto.CourseDto;
-import pl.learnedge.dto.LessonDto;
+import pl.learnedge.dto.CoursePage;
+import pl.learnedge.dto.CourseVersion;
+import pl.learnedge.dto.LessonSummaryDto;
+import pl.learnedge.event.CourseChangedEvent;
 import pl.learnedge.exception.CourseNotFoundException;
 import pl.learnedge.exception.UserAlreadyEnrollException;
 import pl.learnedge.exception.UserNotFoundException;
 import pl.learnedge.mapper.CourseMapper;
-import pl.learnedge.mapper.LessonMapper;
 import pl.learnedge.model.Course;
-import pl.learnedge.model.Lesson;
 import pl.learnedge.model.User;
 import pl.learnedge.model.UserCourse;
 import pl.learnedge.repository.*;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class CourseService {
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_LESSON_PAGE_SIZE = 200;
+
     private final UserCourseRepository userCourseRepository;
     private final CourseRepository courseRepository;
     private final CourseMapper courseMapper;
     private final LessonRepository lessonRepository;
-    private final LessonMapper lessonMapper;
     private final UserRepository userRepository;
     private final LessonProgressRepository lessonProgressRepository;
     private final SlugService slugService;
+    private final SlugRegistry slugRegistry;
+    private final CourseCatalogCache courseCatalogCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CoursePage getAvailableCoursesPage(Long userId, String difficulty, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Limit limit = Limit.of(pageSize + 1);
+        boolean filtered = difficulty != null && !difficulty.isBlank();
+        CourseCursor after = cursor != null && !cursor.isBlank() ? CourseCursor.decode(cursor) : null;
+
+        List<CourseCardDto> courses;
+        if (filtered && after != null) {
+            courses = courseRepository.findAvailableCoursesByDifficultyAfter(userId, difficulty, after.name(), after.id(), limit);
+        } else if (filtered) {
+            courses = courseRepository.findAvailableCoursesByDifficulty(userId, difficulty, limit);
+        } else if (after != null && after.difficulty() == null) {
+            courses = courseRepository.findAvailableCoursesWithoutDifficultyAfter(userId, after.name(), after.id(), limit);
+        } else if (after != null) {
+            courses = courseRepository.findAvailableCoursesAfter(userId, after.difficulty(), after.name(), after.id(), limit);
+        } else {
+            courses = courseRepository.findAvailableCourses(userId, limit);
+        }
+
+        if (courses.size() <= pageSize) {
+            return new CoursePage(courses, null);
+        }
+        List<CourseCardDto> page = courses.subList(0, pageSize);
+        return new CoursePage(List.copyOf(page), CourseCursor.after(page.get(pageSize - 1)).encode());
+    }
 
-    public List<CourseDto> getAvailableCoursesForUser(Long userId){
-        return courseRepository.findAllCoursesNotEnrolledByUser(userId)
-                .stream()
-                .map(courseMapper::toDto)
-                .toList();
-   }
+    public List<String> getCourseDifficulties() {
+        return courseRepository.findAllDifficulties();
+    }
 
     public List<CourseDto> getEnrolledCoursesForUser(Long userId) {
-        List<UserCourse> userCourses = userCourseRepository.findAllByUserId(userId);
-
-        return userCourses.stream()
-                .map(userCourse -> {
-                    Course course = userCourse.getCourse();
-                    List<Lesson> lessons = lessonRepository.findAllByCourseId(course.getId());
-
-                    long totalLessons = lessons.size();
-                    if (totalLessons == 0) totalLessons = 1;
-
-                    long completedLessons = lessonProgressRepository.countByUserIdAndLessonInAndCompletedTrue(userId, lessons);
-
-                    double progress = (double) completedLessons / totalLessons * 100;
-
-                    CourseDto dto = courseMapper.toDto(course);
-                    dto.setProgress(progress);
-                    return dto;
-                })
+        return userCourseRepository.findProgressSummariesByUserId(userId)
+                .stream()
+                .map(courseMapper::toDto)
                 .toList();
     }
 
 
-    @Transactional
-    public CourseDto getCourseBySlug(String slug, Long userId) {
-        Course course = courseRepository.findBySlug(slug)
+    public CourseVersion getCourseVersion(String slug, Long userId) {
+        return slugRegistry.findCourseId(slug)
+                .flatMap(courseId -> courseRepository.findVersionById(courseId, userId))
                 .orElseThrow(CourseNotFoundException::new);
+    }
 
-        List<Lesson> lessons = lessonRepository.findAllByCourseId(course.getId());
-
-
-        List<Long> completedLessonIds = lessonProgressRepository
-                .findCompletedLessonIdsByCourseIdAndUserId(course.getId(), userId);
+    // Spis treści kursu: jedna strona podsumowań lekcji (bez treści), ukończenie sprawdzane przez HashSet
+    @Transactional(readOnly = true)
+    public CourseDto getCourseBySlug(String slug, Long userId, int page, int size) {
+        Course course = slugRegistry.findCourseId(slug)
+                .flatMap(courseRepository::findById)
+                .orElseThrow(CourseNotFoundException::new);
 
-        List<LessonDto> lessonDtos = lessons.stream()
-                .map(lesson -> {
-                    LessonDto dto = lessonMapper.toDto(lesson);
+        int pageSize = Math.max(1, Math.min(size, MAX_LESSON_PAGE_SIZE));
+        List<LessonSummaryDto> lessons = lessonRepository.findSummariesByCourseId(
+                course.getId(), PageRequest.of(Math.max(0, page), pageSize));
 
-                    boolean isCompleted = completedLessonIds.contains(lesson.getId());
-                    dto.setCompleted(isCompleted);
+        int firstPosition = Math.max(0, page) * pageSize + 1;
+        for (int i = 0; i < lessons.size(); i++) {
+            lessons.get(i).setPosition(firstPosition + i);
+        }
 
-                    return dto;
-                })
-                .toList();
+        if (!lessons.isEmpty()) {
+            List<Long> lessonIds = lessons.stream().map(LessonSummaryDto::getId).toList();
+            Set<Long> completedLessonIds = new HashSet<>(lessonProgressRepository
+                    .findCompletedLessonIdsByUserIdAndLessonIds(userId, lessonIds));
+            lessons.forEach(lesson -> lesson.setCompleted(completedLessonIds.contains(lesson.getId())));
+        }
 
-        return courseMapper.toDto(course, lessonDtos);
+        return courseMapper.toDto(course, lessons);
     }
 
 
@@ -111,16 +140,33 @@ public class CourseService {
     }
 
     public List<CourseDto> getAllCourse() {
-        return courseRepository.findAll()
-                .stream()
-                .map(courseMapper::toDto)
-                .toList();
+        return courseCatalogCache.getCatalog();
     }
 
+    @Transactional
     public void createCourse(CourseDto newCourseData) {
         Course newCourse = courseMapper.toEntity(newCourseData);
         newCourse.setId(null);
-        newCourse.setSlug(slugService.generateSlug(newCourse.getName()));
-        courseRepository.save(newCourse);
+        newCourse.setSlug(slugRegistry.reserveCourseSlug(slugService.generateSlug(newCourse.getName())));
+        newCourse = courseRepository.save(newCourse);
+        eventPublisher.publishEvent(new CourseChangedEvent(newCourse.getId()));
+    }
+
+    @Transactional
+    public CourseDto updateCourse(Long courseId, CourseDto courseData) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(CourseNotFoundException::new);
+
+        course.setName(courseData.getName());
+        course.setDescription(courseData.getDescription());
+        course.setDifficulty(courseData.getDifficulty());
+        courseRepository.save(course);
+
+        eventPublisher.publishEvent(new CourseChangedEvent(courseId));
+        return courseMapper.toDto(course);
+    }
+
+    public CacheStats getCatalogCacheStats() {
+        return courseCatalogCache.stats();
     }
 }
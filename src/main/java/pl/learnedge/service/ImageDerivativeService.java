@@ -0,0 +1,243 @@
+package pl.learnedge.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.learnedge.event.ImageUploadedEvent;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pomniejszone warianty przesłanych obrazów, liczone w tle po zapisie pliku:
+// awatary 64/128/256 px (kwadrat, nazwa-s128.jpg) i obrazy lekcji 480/960/1600 px szerokości (nazwa-w960.png).
+// Dopóki wariant nie powstanie, MediaController odsyła oryginał.
+@Service
+@Slf4j
+public class ImageDerivativeService {
+
+    public static final int[] AVATAR_SIZES = {64, 128, 256};
+    public static final int[] LESSON_WIDTHS = {480, 960, 1600};
+
+    private static final String UPLOADS_URL = "/uploads/";
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final ThreadPoolExecutor executor;
+    private final long maxPixels;
+
+    public ImageDerivativeService(@Value("${app.images.workers:2}") int workers,
+                                  @Value("${app.images.queue-capacity:200}") int queueCapacity,
+                                  @Value("${app.images.max-pixels:40000000}") long maxPixels) {
+        this.maxPixels = maxPixels;
+        AtomicInteger threads = new AtomicInteger();
+        // Ograniczona kolejka: przy nadmiarze zadań wariant jest pomijany, a klient dostaje oryginał
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivative-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageUploaded(ImageUploadedEvent event) {
+        for (Path file : event.files()) {
+            try {
+                executor.execute(() -> generate(file, event.kind()));
+            } catch (RejectedExecutionException e) {
+                log.warn("Image derivative queue full, serving original for {}", file);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static String derivativeName(String name, String suffix) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) + "-" + suffix + name.substring(dot) : name + "-" + suffix;
+    }
+
+    // Dla szablonów: adres awatara w danym rozmiarze (zewnętrzne adresy, np. z Google, bez zmian)
+    public String avatarUrl(String url, int size) {
+        if (url == null || !url.startsWith(UPLOADS_URL)) return url;
+        return derivativeName(url, "s" + size);
+    }
+
+    public String avatarSrcset(String url, int size) {
+        if (url == null || !url.startsWith(UPLOADS_URL)) return null;
+        return avatarUrl(url, size) + " 1x, " + avatarUrl(url, size * 2) + " 2x";
+    }
+
+    // srcset obrazu lekcji: warianty węższe od oryginału + sam oryginał; null gdy nie ma czego zmniejszać
+    public String lessonSrcset(Path file, String url) {
+        int width = readWidth(file);
+        if (width <= LESSON_WIDTHS[0]) return null;
+
+        List<String> candidates = new ArrayList<>();
+        for (int target : LESSON_WIDTHS) {
+            if (target < width) candidates.add(derivativeName(url, "w" + target) + " " + target + "w");
+        }
+        candidates.add(url + " " + width + "w");
+        return String.join(", ", candidates);
+    }
+
+    private void generate(Path file, ImageUploadedEvent.Kind kind) {
+        try {
+            String format = formatOf(file);
+            if (format == null) return;
+            BufferedImage source = decode(file, maxPixels);
+            if (source == null) return;
+            String name = file.getFileName().toString();
+
+            if (kind == ImageUploadedEvent.Kind.AVATAR) {
+                BufferedImage square = cropSquare(source);
+                for (int size : AVATAR_SIZES) {
+                    Path target = file.resolveSibling(derivativeName(name, "s" + size));
+                    if (square.getWidth() < size || Files.exists(target)) continue;
+                    write(resize(square, size, size, format), format, target);
+                }
+            } else {
+                for (int width : LESSON_WIDTHS) {
+                    // Plik z magazynu treści mógł już zostać przetworzony przy innej lekcji
+                    Path target = file.resolveSibling(derivativeName(name, "w" + width));
+                    if (source.getWidth() <= width || Files.exists(target)) continue;
+                    int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+                    write(resize(source, width, height, format), format, target);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not generate image derivatives for {}", file, e);
+        }
+    }
+
+    private static BufferedImage cropSquare(BufferedImage source) {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - side) / 2;
+        int y = (source.getHeight() - side) / 2;
+        return source.getSubimage(x, y, side, side);
+    }
+
+    // Zmniejszanie kolejnymi połowami z interpolacją dwuliniową - jakość zbliżona do bikubicznej, dużo szybciej
+    private static BufferedImage resize(BufferedImage source, int width, int height, String format) {
+        boolean alpha = source.getColorModel().hasAlpha() && !format.equals("jpg");
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, w, h, null);
+            graphics.dispose();
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    // Zapis do pliku tymczasowego i atomowa podmiana - nikt nie dostanie niedokończonego wariantu
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".derivative-", ".tmp");
+        try {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+            if (!writers.hasNext()) return;
+            ImageWriter writer = writers.next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if (format.equals("jpg")) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(JPEG_QUALITY);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        return switch (extension) {
+            case "jpg", "jpeg" -> "jpg";
+            case "png" -> "png";
+            case "gif" -> "gif";
+            default -> null;
+        };
+    }
+
+    // Dekodowanie przez ImageReader: wymiary z nagłówka sprawdzane przed alokacją rastra,
+    // więc mały plik deklarujący np. 100000x100000 px nie zajmie pamięci. null = nieobsługiwany lub za duży.
+    static BufferedImage decode(Path file, long maxPixels) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Image {} has {} pixels (limit {}), skipping derivatives", file, pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Szerokość z nagłówka pliku, bez dekodowania całego obrazu
+    private static int readWidth(Path file) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return 0;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return 0;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return reader.getWidth(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
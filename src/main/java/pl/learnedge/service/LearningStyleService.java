@@ -4,16 +4,12 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import pl.learnedge.model.User;
 import pl.learnedge.repository.UserRepository;
+import pl.learnedge.util.TextNormalizer;
 
-import java.text.Normalizer;
 import java.util.*;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,13 +21,12 @@ public class LearningStyleService {
     }
 
     public User getAuthenticatedUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated()) throw new IllegalStateException("Brak usera");
-        return userRepository.findByUsername(auth.getName()).orElseThrow();
+        return userRepository.findById(authService.getCurrentUserId()).orElseThrow();
     }
 
     private final UserRepository userRepository;
     private final HuggingFaceAiService aiService;
+    private final AuthService authService;
 
     private static final int POINT_PER_CLOSED_ANSWER = 1;
     private static final int MIN_OPEN_ANSWER_WEIGHT = 4;
@@ -138,15 +133,8 @@ public class LearningStyleService {
         }
     }
 
-    private String normalizeText(String text) {
-        if (text == null) return "";
-        String nfdNormalizedString = Normalizer.normalize(text, Normalizer.Form.NFD); 
-        Pattern pattern = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
-        return pattern.matcher(nfdNormalizedString).replaceAll("").toLowerCase();
-    }
-
     private LearningStyle analyzeKeywords(String text) {
-        String normalizedText = normalizeText(text); 
+        String normalizedText = TextNormalizer.normalize(text);
         log.info("Znormalizowany tekst: '{}'", normalizedText);
 
         // --- WZROKOWIEC (VISUAL) ---
@@ -260,12 +248,15 @@ public class LearningStyleService {
 
     private void saveResultToUser(String style) {
         try {
-            User currentUser = getAuthenticatedUser();
-            currentUser.setLearningStyle(style);
-            userRepository.save(currentUser);
-            updateAuthenticationObject(currentUser);
+            updateLearningStyle(style);
         } catch (Exception e) { }
     }
+
+    public void updateLearningStyle(String style) {
+        User currentUser = getAuthenticatedUser();
+        currentUser.setLearningStyle(style);
+        updateAuthenticationObject(userRepository.save(currentUser));
+    }
     
     public boolean isAiAnalysisAvailable() {
         return aiService.isAvailable();
@@ -273,9 +264,6 @@ public class LearningStyleService {
 
 
     public void updateAuthenticationObject(User updatedUser) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        SecurityContextHolder.getContext().setAuthentication(
-            new UsernamePasswordAuthenticationToken(updatedUser, auth.getCredentials(), auth.getAuthorities())
-        );
+        authService.refreshPrincipal(updatedUser);
     }
 }
\ No newline at end of file
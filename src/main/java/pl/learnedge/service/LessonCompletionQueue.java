@@ -0,0 +1,308 @@
+package pl.learnedge.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import pl.learnedge.dto.LessonCompletion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Ukończenia lekcji zapisywane w tle: żądanie trafia do ograniczonej kolejki (powtórzenia tej samej
+// pary użytkownik-lekcja łączą się w jedno), a jeden wątek co flush-interval zapisuje całą kolejkę
+// paczkami przez LessonProgressWriter.
+// Trwałość (app.progress.completion.durability):
+// - memory: kolejka tylko w pamięci, awaria procesu gubi ukończenia z ostatnich milisekund,
+// - wal: każde ukończenie dopisywane do lokalnego pliku, odtwarzanego przy starcie; submit wraca po fsync,
+//   ale fsync robi jeden wątek naraz za wszystkie dopisane do tej pory wpisy (group commit), poza blokadą kolejki,
+// - sync: zapis do bazy w wątku żądania, bez kolejki.
+// Przy pełnej kolejce ukończenie zapisywane jest od razu w wątku żądania.
+// Stan ustawiany wprost (afterPending) najpierw opróżnia kolejkę, żeby starsze ukończenie go nie nadpisało.
+// Kolejność blokad: flushLock -> syncLock -> pending.
+@Service
+@Slf4j
+public class LessonCompletionQueue {
+
+    public enum Durability { MEMORY, WAL, SYNC }
+
+    private final LessonProgressWriter writer;
+    private final Durability durability;
+    private final int capacity;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Path walFile;
+    private final Path flushingWalFile;
+
+    private final Set<LessonCompletion> pending = new LinkedHashSet<>();
+    private final ScheduledThreadPoolExecutor flusher;
+    private final Object flushLock = new Object();
+    private final Object syncLock = new Object();
+    private FileChannel wal;
+    // Numer ostatniego wpisu dopisanego do dziennika (pod pending) i ostatniego po fsync (pod syncLock)
+    private long appended;
+    private long synced;
+
+    public LessonCompletionQueue(LessonProgressWriter writer,
+                                 @Value("${app.progress.completion.durability:memory}") String durability,
+                                 @Value("${app.progress.completion.queue-capacity:10000}") int capacity,
+                                 @Value("${app.progress.completion.batch-size:500}") int batchSize,
+                                 @Value("${app.progress.completion.flush-interval:PT0.01S}") Duration flushInterval,
+                                 @Value("${app.progress.completion.wal-file:data/lesson-completions.wal}") Path walFile) {
+        this.writer = writer;
+        this.durability = Durability.valueOf(durability.trim().toUpperCase(Locale.ROOT));
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.walFile = walFile;
+        this.flushingWalFile = walFile.resolveSibling(walFile.getFileName() + ".flushing");
+        this.flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "lesson-completion-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (this.durability == Durability.WAL) {
+            recoverWal();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (durability == Durability.SYNC) return;
+        flusher.scheduleWithFixedDelay(this::flushSafely,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+        synchronized (pending) {
+            closeWal();
+        }
+    }
+
+    // true = ukończenie czeka w kolejce, false = zapisane już w bazie
+    public boolean submit(Long userId, Long lessonId) {
+        LessonCompletion completion = new LessonCompletion(userId, lessonId);
+        if (durability != Durability.SYNC) {
+            long ticket = -1;
+            synchronized (pending) {
+                if (pending.contains(completion)) {
+                    // Wcześniejszy wpis tej pary mógł jeszcze nie przejść fsync
+                    ticket = appended;
+                } else if (pending.size() < capacity) {
+                    if (durability == Durability.WAL) ticket = appendWal(completion);
+                    pending.add(completion);
+                    if (durability != Durability.WAL) return true;
+                }
+            }
+            if (ticket >= 0) {
+                if (durability == Durability.WAL) awaitSynced(ticket);
+                return true;
+            }
+        }
+        write(List.of(completion));
+        return false;
+    }
+
+    // Zapis stanu ustawianego wprost (LessonService.updateProgress): najpierw trafia do bazy wszystko,
+    // co czeka w kolejce lub jest właśnie zapisywane, więc starsze ukończenie nie nadpisze nowszego "nieukończona"
+    public <T> T afterPending(Supplier<T> write) {
+        synchronized (flushLock) {
+            flush();
+            return write.get();
+        }
+    }
+
+    public int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    // Zapisuje wszystko, co czeka w kolejce; nieudane paczki wracają do kolejki.
+    // Gdy nie uda się przełączyć dziennika, kolejka zostaje nietknięta i flush zgłasza błąd.
+    public void flush() {
+        synchronized (flushLock) {
+            List<LessonCompletion> batch;
+            synchronized (syncLock) {
+                synchronized (pending) {
+                    if (pending.isEmpty()) return;
+                    if (durability == Durability.WAL) rotateWal();
+                    batch = new ArrayList<>(pending);
+                    pending.clear();
+                }
+            }
+
+            List<LessonCompletion> failed = new ArrayList<>();
+            for (int from = 0; from < batch.size(); from += batchSize) {
+                List<LessonCompletion> chunk = batch.subList(from, Math.min(from + batchSize, batch.size()));
+                try {
+                    write(chunk);
+                } catch (RuntimeException e) {
+                    log.warn("Lesson completion batch of {} failed, will retry: {}", chunk.size(), e.getMessage());
+                    failed.addAll(chunk);
+                }
+            }
+
+            long ticket = -1;
+            synchronized (pending) {
+                for (LessonCompletion completion : failed) {
+                    if (pending.add(completion) && durability == Durability.WAL) ticket = appendWal(completion);
+                }
+            }
+            if (durability == Durability.WAL) {
+                // Plik paczki znika dopiero, gdy ponowione wpisy są trwałe w bieżącym dzienniku
+                if (ticket >= 0) awaitSynced(ticket);
+                deleteQuietly(flushingWalFile);
+            }
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Lesson completion flush failed", e);
+        }
+    }
+
+    private void write(List<LessonCompletion> completions) {
+        writer.complete(completions);
+    }
+
+    // Zawartość po awarii: bieżący plik i ewentualnie plik paczki, której zapis nie został potwierdzony
+    private void recoverWal() {
+        try {
+            Files.createDirectories(walFile.toAbsolutePath().getParent());
+            for (Path file : List.of(flushingWalFile, walFile)) {
+                if (!Files.exists(file)) continue;
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String[] ids = line.trim().split(" ");
+                    if (ids.length != 2) continue;
+                    try {
+                        pending.add(new LessonCompletion(Long.valueOf(ids[0]), Long.valueOf(ids[1])));
+                    } catch (NumberFormatException e) {
+                        // Urwany ostatni wiersz
+                    }
+                }
+            }
+            // Odtworzona kolejka trafia do nowego pliku podmienianego atomowo, dopiero potem znika plik paczki
+            Path recovered = walFile.resolveSibling(walFile.getFileName() + ".tmp");
+            StringBuilder lines = new StringBuilder();
+            for (LessonCompletion completion : pending) {
+                lines.append(completion.userId()).append(' ').append(completion.lessonId()).append('\n');
+            }
+            try (FileChannel channel = FileChannel.open(recovered, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.US_ASCII));
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(recovered, walFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(flushingWalFile);
+            openWal();
+            if (!pending.isEmpty()) {
+                log.info("Recovered {} lesson completions from {}", pending.size(), walFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nie można odtworzyć dziennika ukończeń lekcji: " + walFile, e);
+        }
+    }
+
+    private void openWal() throws IOException {
+        wal = FileChannel.open(walFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Dopisuje wpis bez fsync (wywoływane pod pending); zwraca numer, na który czeka awaitSynced
+    private long appendWal(LessonCompletion completion) {
+        byte[] line = (completion.userId() + " " + completion.lessonId() + "\n").getBytes(StandardCharsets.US_ASCII);
+        try {
+            // Kanał zamknięty po nieudanym przełączeniu dziennika otwieramy ponownie
+            if (wal == null || !wal.isOpen()) openWal();
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) wal.write(buffer);
+            return ++appended;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nie można zapisać ukończenia lekcji w dzienniku", e);
+        }
+    }
+
+    // Group commit: pierwszy czekający wątek robi fsync za wszystkie dopisane wpisy, pozostali
+    // czekają na syncLock i wracają bez własnego fsync
+    private void awaitSynced(long ticket) {
+        synchronized (syncLock) {
+            if (synced >= ticket) return;
+            long upTo;
+            FileChannel channel;
+            synchronized (pending) {
+                upTo = appended;
+                channel = wal;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Nie można zapisać ukończenia lekcji w dzienniku", e);
+            }
+            synced = upTo;
+        }
+    }
+
+    // Wywoływane pod syncLock i pending. Zawartość dziennika odpowiada paczce wyjętej z kolejki;
+    // nowe ukończenia idą do świeżego pliku. Przy błędzie kanał jest otwierany ponownie na starym pliku.
+    private void rotateWal() {
+        try {
+            wal.force(false);
+            synced = appended;
+            wal.close();
+            try {
+                Files.move(walFile, flushingWalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                openWal();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nie można przełączyć dziennika ukończeń lekcji", e);
+        }
+    }
+
+    private void closeWal() {
+        if (wal == null) return;
+        try {
+            wal.close();
+        } catch (IOException e) {
+            log.warn("Closing {} failed: {}", walFile, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Deleting {} failed: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package pl.learnedge.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.learnedge.exception.CourseNotFoundException;
+import pl.learnedge.exception.LessonNotFoundException;
+import pl.learnedge.repository.CourseRepository;
+import pl.learnedge.repository.LessonRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+// Kolejność lekcji jako rzadkie rangi (co RANK_GAP): przeniesienie lekcji zmienia jeden wiersz,
+// a pełne przenumerowanie potrzebne jest dopiero, gdy między sąsiadami zabraknie miejsca.
+// Każda zmiana zaczyna się od UPDATE wiersza kursu, więc operacje na jednym kursie są szeregowane
+// blokadą tego wiersza, bez blokowania tabeli lekcji.
+@Service
+@RequiredArgsConstructor
+public class LessonOrderingService {
+
+    public static final int RANK_GAP = 1024;
+
+    private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Ranga dla lekcji dopisywanej na koniec kursu
+    @Transactional
+    public int allocateLastRank(Long courseId) {
+        if (courseRepository.advanceLastLessonRank(courseId, RANK_GAP) == 0) {
+            throw new CourseNotFoundException();
+        }
+        return courseRepository.findLastLessonRank(courseId);
+    }
+
+    // Przenosi lekcję za afterLessonId (null = na początek kursu)
+    @Transactional
+    public void moveAfter(Long lessonId, Long afterLessonId) {
+        Long courseId = lessonRepository.findCourseIdById(lessonId)
+                .orElseThrow(LessonNotFoundException::new);
+        courseRepository.bumpContentVersion(courseId);
+
+        Integer rank = rankAfter(courseId, lessonId, afterLessonId);
+        if (rank == null) {
+            applyOrder(courseId, lessonRepository.findOrderedIdsByCourseId(courseId));
+            rank = rankAfter(courseId, lessonId, afterLessonId);
+        }
+        lessonRepository.updateRank(lessonId, rank);
+    }
+
+    // Ustawia całą kolejność kursu naraz; lista musi zawierać każdą lekcję kursu dokładnie raz
+    @Transactional
+    public void reorder(Long courseId, List<Long> lessonIds) {
+        if (courseRepository.bumpContentVersion(courseId) == 0) {
+            throw new CourseNotFoundException();
+        }
+        List<Long> current = lessonRepository.findOrderedIdsByCourseId(courseId);
+        if (lessonIds.size() != current.size() || !new HashSet<>(lessonIds).equals(new HashSet<>(current))) {
+            throw new IllegalArgumentException("Nowa kolejność musi zawierać każdą lekcję kursu dokładnie raz");
+        }
+        applyOrder(courseId, lessonIds);
+    }
+
+    // Ranga w połowie odstępu za poprzednikiem albo null, gdy odstęp się wyczerpał
+    private Integer rankAfter(Long courseId, Long lessonId, Long afterLessonId) {
+        int previous = 0;
+        if (afterLessonId != null) {
+            if (afterLessonId.equals(lessonId)) {
+                throw new IllegalArgumentException("Lekcji nie można przenieść za nią samą");
+            }
+            previous = lessonRepository.findRank(afterLessonId, courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Lekcja " + afterLessonId + " nie należy do tego kursu"));
+        }
+        Integer next = lessonRepository.findNextRank(courseId, previous, lessonId);
+        if (next == null) {
+            return allocateLastRank(courseId);
+        }
+        return next - previous >= 2 ? previous + (next - previous) / 2 : null;
+    }
+
+    // Jedno polecenie UPDATE ... CASE dla wszystkich lekcji kursu
+    private void applyOrder(Long courseId, List<Long> orderedIds) {
+        if (orderedIds.isEmpty()) return;
+
+        StringBuilder sql = new StringBuilder("UPDATE lessons SET lesson_order = CASE id");
+        List<Object> args = new ArrayList<>(orderedIds.size() * 3 + 1);
+        for (int i = 0; i < orderedIds.size(); i++) {
+            sql.append(" WHEN ? THEN ?");
+            args.add(orderedIds.get(i));
+            args.add((i + 1) * RANK_GAP);
+        }
+        sql.append(" END WHERE course_id = ? AND id IN (");
+        args.add(courseId);
+        for (int i = 0; i < orderedIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(orderedIds.get(i));
+        }
+        sql.append(')');
+
+        jdbcTemplate.update(sql.toString(), args.toArray());
+        courseRepository.setLastLessonRank(courseId, orderedIds.size() * RANK_GAP);
+    }
+}
@@ -0,0 +1,244 @@
+package pl.learnedge.service;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.learnedge.dto.CourseProgress;
+import pl.learnedge.dto.LessonCompletion;
+import pl.learnedge.dto.LessonCourseRef;
+import pl.learnedge.dto.LessonProgressUpdate;
+import pl.learnedge.dto.ProgressUpdateResult;
+import pl.learnedge.model.IdGenerators;
+import pl.learnedge.repository.LessonProgressRepository;
+import pl.learnedge.repository.LessonRepository;
+import pl.learnedge.repository.UserCourseRepository;
+import pl.learnedge.repository.UserRepository;
+
+import java.util.*;
+
+// Zapis stanu lekcji paczkami, bez ładowania encji User/Lesson:
+// brakujące wiersze lesson_progress wstawiane są jako nieukończone (MERGE / ON DUPLICATE KEY, więc
+// powtórzenie nie narusza uc_lesson_user_unique), a stan zmienia warunkowy UPDATE ... WHERE completed <> ?.
+// Liczniki user_course zmieniają się o liczbę wierszy, które ten UPDATE faktycznie zmienił: blokada wiersza
+// sprawia, że równoległe paczki (także z innych węzłów) nie policzą tej samej zmiany dwa razy.
+// Wiersze zapisywane są w stałej kolejności (użytkownik, lekcja), żeby równoległe paczki nie zakleszczały się.
+@Service
+public class LessonProgressWriter {
+
+    // Wiersze jednej instrukcji wstawiającej; większe paczki dzielone są na kilka instrukcji
+    static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String SEQUENCE = "lesson_progress";
+
+    private static final String RESERVE_IDS = "UPDATE " + IdGenerators.TABLE
+            + " SET " + IdGenerators.VALUE_COLUMN + " = " + IdGenerators.VALUE_COLUMN + " + ?"
+            + " WHERE " + IdGenerators.NAME_COLUMN + " = ?";
+
+    private static final String READ_IDS = "SELECT " + IdGenerators.VALUE_COLUMN + " FROM " + IdGenerators.TABLE
+            + " WHERE " + IdGenerators.NAME_COLUMN + " = ?";
+
+    private static final String SET_COMPLETED = """
+            UPDATE lesson_progress SET completed = ?
+            WHERE user_id = ? AND lesson_id = ? AND completed <> ?""";
+
+    // Postęp liczony przed licznikiem: MySQL wykonuje SET od lewej do prawej
+    private static final String ADJUST_COMPLETED = """
+            UPDATE user_course
+            SET progress = COALESCE(FLOOR((completed_lessons + ?) * 100 / NULLIF(
+                    (SELECT c.lesson_count FROM courses c WHERE c.id = user_course.course_id), 0)), 0),
+                completed_lessons = completed_lessons + ?
+            WHERE user_id = ? AND course_id = ?""";
+
+    private static final Comparator<LessonCompletion> ROW_ORDER =
+            Comparator.comparing(LessonCompletion::userId).thenComparing(LessonCompletion::lessonId);
+
+    private record Enrollment(Long userId, Long courseId) {
+    }
+
+    private record Outcome(int changed, Set<Long> courseIds) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final LessonRepository lessonRepository;
+    private final LessonProgressRepository lessonProgressRepository;
+    private final UserRepository userRepository;
+    private final UserCourseRepository userCourseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate idTemplate;
+
+    private volatile Boolean mysql;
+
+    public LessonProgressWriter(JdbcTemplate jdbcTemplate,
+                                EntityManager entityManager,
+                                LessonRepository lessonRepository,
+                                LessonProgressRepository lessonProgressRepository,
+                                UserRepository userRepository,
+                                UserCourseRepository userCourseRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.lessonRepository = lessonRepository;
+        this.lessonProgressRepository = lessonProgressRepository;
+        this.userRepository = userRepository;
+        this.userCourseRepository = userCourseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Rezerwacja puli id we własnej transakcji, żeby blokada wiersza id_generators nie trwała do końca zapisu
+        this.idTemplate = new TransactionTemplate(transactionManager);
+        this.idTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Ukończenia wielu użytkowników naraz; zwraca liczbę nowych ukończeń
+    public int complete(Collection<LessonCompletion> completions) {
+        Map<LessonCompletion, Boolean> states = new LinkedHashMap<>();
+        completions.forEach(completion -> states.put(completion, true));
+        return transactionTemplate.execute(status -> write(states)).changed();
+    }
+
+    // Stan wielu lekcji jednego użytkownika; przy powtórzeniach lekcji wygrywa ostatni wpis.
+    // Zwraca postęp we wszystkich kursach, których dotyczyło żądanie (także gdy nic się nie zmieniło).
+    public ProgressUpdateResult apply(Long userId, Collection<LessonProgressUpdate> updates) {
+        Map<LessonCompletion, Boolean> states = new LinkedHashMap<>();
+        for (LessonProgressUpdate update : updates) {
+            if (update.lessonId() == null) continue;
+            states.put(new LessonCompletion(userId, update.lessonId()), update.completed() == null || update.completed());
+        }
+        return transactionTemplate.execute(status -> {
+            Outcome outcome = write(states);
+            List<CourseProgress> courses = outcome.courseIds().isEmpty()
+                    ? List.of()
+                    : userCourseRepository.findCourseProgress(userId, outcome.courseIds());
+            return new ProgressUpdateResult(outcome.changed(), courses);
+        });
+    }
+
+    // Lekcje i konta usunięte w międzyczasie są pomijane
+    private Outcome write(Map<LessonCompletion, Boolean> states) {
+        if (states.isEmpty()) return new Outcome(0, Set.of());
+        // Zapisy JDBC muszą widzieć encje czekające jeszcze w kontekście trwałości
+        entityManager.flush();
+
+        Set<Long> lessonIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (LessonCompletion key : states.keySet()) {
+            lessonIds.add(key.lessonId());
+            userIds.add(key.userId());
+        }
+        Map<Long, Long> courseByLesson = new HashMap<>();
+        for (LessonCourseRef ref : lessonRepository.findCourseRefs(lessonIds)) {
+            courseByLesson.put(ref.lessonId(), ref.courseId());
+        }
+        Set<Long> existingUsers = new HashSet<>(userRepository.findExistingIds(userIds));
+
+        Map<LessonCompletion, Boolean> rows = new TreeMap<>(ROW_ORDER);
+        Set<Long> courseIds = new TreeSet<>();
+        states.forEach((key, target) -> {
+            Long courseId = courseByLesson.get(key.lessonId());
+            if (courseId == null || !existingUsers.contains(key.userId())) return;
+            courseIds.add(courseId);
+            rows.put(key, target);
+        });
+        if (rows.isEmpty()) return new Outcome(0, courseIds);
+
+        // Brak wiersza oznacza lekcję nieukończoną, więc wstawiać trzeba tylko pod ukończenia
+        Set<LessonCompletion> existing = new HashSet<>(lessonProgressRepository.findProgressKeys(userIds, lessonIds));
+        List<LessonCompletion> missing = new ArrayList<>();
+        rows.forEach((key, target) -> {
+            if (target && !existing.contains(key)) missing.add(key);
+        });
+        insertMissing(missing);
+
+        List<LessonCompletion> keys = new ArrayList<>(rows.keySet());
+        List<Object[]> args = new ArrayList<>(keys.size());
+        for (LessonCompletion key : keys) {
+            boolean target = rows.get(key);
+            args.add(new Object[]{target, key.userId(), key.lessonId(), target});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(SET_COMPLETED, args);
+
+        Map<Enrollment, Integer> deltas = new TreeMap<>(
+                Comparator.comparing(Enrollment::userId).thenComparing(Enrollment::courseId));
+        int changed = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            if (counts[i] < 0) {
+                throw new IllegalStateException("Sterownik JDBC nie zwrócił liczby zmienionych wierszy postępu");
+            }
+            if (counts[i] == 0) continue;
+            LessonCompletion key = keys.get(i);
+            deltas.merge(new Enrollment(key.userId(), courseByLesson.get(key.lessonId())),
+                    rows.get(key) ? 1 : -1, Integer::sum);
+            changed++;
+        }
+
+        List<Object[]> counters = new ArrayList<>(deltas.size());
+        deltas.forEach((enrollment, delta) -> {
+            if (delta != 0) counters.add(new Object[]{delta, delta, enrollment.userId(), enrollment.courseId()});
+        });
+        if (!counters.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADJUST_COMPLETED, counters);
+        }
+        return new Outcome(changed, courseIds);
+    }
+
+    // Wiersz wstawiony w międzyczasie przez inną paczkę zostaje bez zmian; stan ustawia dopiero warunkowy UPDATE
+    private void insertMissing(List<LessonCompletion> missing) {
+        if (missing.isEmpty()) return;
+        long id = reserveIds(missing.size());
+        for (int from = 0; from < missing.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<LessonCompletion> chunk = missing.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, missing.size()));
+            List<Object> values = new ArrayList<>(chunk.size() * 3);
+            for (LessonCompletion key : chunk) {
+                Collections.addAll(values, id++, key.lessonId(), key.userId());
+            }
+            jdbcTemplate.update(insertSql(chunk.size()), values.toArray());
+        }
+    }
+
+    // Jedna instrukcja dla count wierszy (id, lesson_id, user_id) wstawianych jako nieukończone
+    private String insertSql(int count) {
+        StringJoiner values;
+        if (isMysql()) {
+            values = new StringJoiner(", ",
+                    "INSERT INTO lesson_progress (id, lesson_id, user_id, completed) VALUES ",
+                    " ON DUPLICATE KEY UPDATE id = id");
+            for (int i = 0; i < count; i++) values.add("(?, ?, ?, FALSE)");
+        } else {
+            values = new StringJoiner(", ",
+                    "MERGE INTO lesson_progress t USING (VALUES ",
+                    ") AS s (id, lesson_id, user_id)"
+                            + " ON t.lesson_id = s.lesson_id AND t.user_id = s.user_id"
+                            + " WHEN NOT MATCHED THEN INSERT (id, lesson_id, user_id, completed)"
+                            + " VALUES (s.id, s.lesson_id, s.user_id, FALSE)");
+            for (int i = 0; i < count; i++) {
+                values.add("(CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))");
+            }
+        }
+        return values.toString();
+    }
+
+    // Pierwsze z count kolejnych id z tej samej puli id_generators co encja LessonProgress.
+    // Rezerwuje całe pule po IdGenerators.ALLOCATION_SIZE: Hibernate traktuje odczytaną wartość
+    // jako górny koniec swojej puli, więc zapisy przez JPA nie dostaną tych samych numerów.
+    private long reserveIds(int count) {
+        int pools = (count + IdGenerators.ALLOCATION_SIZE - 1) / IdGenerators.ALLOCATION_SIZE;
+        long reserved = (long) pools * IdGenerators.ALLOCATION_SIZE;
+        Long next = idTemplate.execute(status -> {
+            jdbcTemplate.update(RESERVE_IDS, reserved, SEQUENCE);
+            return jdbcTemplate.queryForObject(READ_IDS, Long.class, SEQUENCE);
+        });
+        return next - reserved - IdGenerators.ALLOCATION_SIZE + 1;
+    }
+
+    private boolean isMysql() {
+        if (mysql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            mysql = product != null && product.toLowerCase(Locale.ROOT).contains("mysql");
+        }
+        return mysql;
+    }
+}
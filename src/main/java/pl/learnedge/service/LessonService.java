@@ -1,46 +1,75 @@
 package pl.learnedge.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import pl.learnedge.dto.CacheStats;
 import pl.learnedge.dto.LessonDto;
+import pl.learnedge.dto.LessonProgressUpdate;
+import pl.learnedge.dto.LessonVersion;
+import pl.learnedge.dto.ProgressUpdateResult;
+import pl.learnedge.dto.StoredMedia;
+import pl.learnedge.event.ImageUploadedEvent;
+import pl.learnedge.event.LessonChangedEvent;
 import pl.learnedge.exception.LessonNotFoundException;
-import pl.learnedge.exception.UserNotFoundException;
 import pl.learnedge.mapper.LessonMapper;
 import pl.learnedge.model.Course;
 import pl.learnedge.model.Lesson;
-import pl.learnedge.model.LessonProgress;
-import pl.learnedge.model.User;
 import pl.learnedge.repository.CourseRepository;
 import pl.learnedge.repository.LessonProgressRepository;
 import pl.learnedge.repository.LessonRepository;
-import pl.learnedge.repository.UserRepository;
+import pl.learnedge.repository.UserCourseRepository;
+import pl.learnedge.util.LessonHtmlRewriter;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 public class LessonService {
 
+    static final String LESSON_IMAGE_SIZES = "(max-width: 992px) 100vw, 960px";
+    private static final int MAX_PROGRESS_UPDATES = LessonProgressWriter.MAX_ROWS_PER_STATEMENT;
+
     private final LessonRepository lessonRepository;
     private final LessonMapper lessonMapper;
     private final CourseRepository courseRepository;
-    private final UserRepository userRepository;
     private final LessonProgressRepository lessonProgressRepository;
+    private final UserCourseRepository userCourseRepository;
     private final SlugService slugService;
+    private final SlugRegistry slugRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LessonVariantCache lessonVariantCache;
+    private final ImageDerivativeService imageDerivativeService;
+    private final MediaStore mediaStore;
+    private final LessonOrderingService lessonOrderingService;
+    private final LessonProgressWriter lessonProgressWriter;
+    private final LessonCompletionQueue lessonCompletionQueue;
+
+    // Lekcja z adresu /kurs/{kurs}/{lekcja} - id z rejestru slugów, wersja z indeksu głównego
+    public LessonVersion getLessonVersion(String courseSlug, String lessonSlug) {
+        return slugRegistry.findLessonId(courseSlug, lessonSlug)
+                .flatMap(lessonRepository::findVersionById)
+                .orElseThrow(LessonNotFoundException::new);
+    }
 
-    public LessonDto getLessonBySlug(String slug) {
-        Lesson lesson = lessonRepository.findBySlug(slug)
+    // Lekcja z treścią przyciętą do bloków data-learning danego stylu uczenia się
+    public LessonDto getLessonForLearningStyle(Long lessonId, int learningStyle) {
+        LessonDto lesson = lessonRepository.findHeaderById(lessonId)
                 .orElseThrow(LessonNotFoundException::new);
-        return lessonMapper.toDto(lesson);
+        lesson.setContent(lessonVariantCache.render(lesson.getId(), lesson.getContentVersion(), learningStyle,
+                () -> lessonRepository.findContentById(lessonId).orElseThrow(LessonNotFoundException::new)));
+        return lesson;
+    }
+
+    public CacheStats getVariantCacheStats() {
+        return lessonVariantCache.stats();
     }
 
+    @Transactional
     public void saveLesson(Long courseId,
                            String title,
                            String contentHtml,
@@ -52,58 +81,54 @@ public class LessonService {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Nie znaleziono kursu o ID: " + courseId));
 
+        // Pliki i HTML przed zajęciem pozycji: allocateLastRank blokuje wiersz kursu do końca transakcji
+        Map<String, StoredMedia> imageReplacements = new HashMap<>();
+        Map<String, StoredMedia> audioReplacements = new HashMap<>();
+
+        saveUploadedFiles(images, imageNames, imageReplacements);
+        saveUploadedFiles(audioFiles, audioNames, audioReplacements);
+
+        // Jedna mapa nazwa pliku -> adres w magazynie; HTML przepisywany jest w jednym przebiegu
+        Map<String, LessonHtmlRewriter.Asset> assets = new HashMap<>();
+        List<Path> lessonImages = new ArrayList<>();
+        for (Map.Entry<String, StoredMedia> image : imageReplacements.entrySet()) {
+            if (!image.getKey().toLowerCase().matches(".*\\.(jpg|jpeg|png)$")) continue;
+            String url = image.getValue().url();
+            // Warianty 480/960/1600 px powstają w tle; do tego czasu adresy z srcset zwracają oryginał
+            String srcset = imageDerivativeService.lessonSrcset(image.getValue().path(), url);
+            assets.put(image.getKey(), new LessonHtmlRewriter.Asset(url, srcset, srcset != null ? LESSON_IMAGE_SIZES : null));
+            lessonImages.add(image.getValue().path());
+        }
+        for (Map.Entry<String, StoredMedia> audio : audioReplacements.entrySet()) {
+            if (!audio.getKey().toLowerCase().endsWith(".mp3")) continue;
+            assets.put(audio.getKey(), new LessonHtmlRewriter.Asset(audio.getValue().url()));
+        }
+
+        contentHtml = LessonHtmlRewriter.rewrite(contentHtml, assets);
+
         Lesson lesson = new Lesson();
         lesson.setTitle(title);
         lesson.setCourse(course);
-        int nextOrder = getLastLessonOrder(courseId) + 1;
-        lesson.setLessonOrder(nextOrder);
-        lesson.setSlug(slugService.generateSlug(title));
-        lesson.setContent("");
+        lesson.setSlug(slugRegistry.reserveLessonSlug(courseId, slugService.generateSlug(title)));
+        lesson.setContent(contentHtml);
+        lesson.setLessonOrder(lessonOrderingService.allocateLastRank(courseId));
         lesson = lessonRepository.save(lesson);
 
-        Path baseDir = Paths.get("uploads", "courses", course.getSlug(), lesson.getId().toString());
-        try {
-            Files.createDirectories(baseDir);
-        } catch (IOException e) {
-            throw new RuntimeException("Nie można utworzyć katalogu lekcji: " + baseDir, e);
-        }
-
-        Map<String, String> imageReplacements = new HashMap<>();
-        Map<String, String> audioReplacements = new HashMap<>();
-
-        saveUploadedFiles(images, imageNames, baseDir, imageReplacements);
-        saveUploadedFiles(audioFiles, audioNames, baseDir, audioReplacements);
+        courseRepository.adjustLessonCount(courseId, 1);
+        userCourseRepository.recalculateProgressForCourse(courseId);
 
-        String basePath = "/uploads/courses/" + course.getSlug() + "/" + lesson.getId() + "/";
-
-        for (String oldName : imageReplacements.keySet()) {
-            if (!oldName.toLowerCase().matches(".*\\.(jpg|jpeg|png)$")) continue;
-            String escaped = Pattern.quote(oldName);
-            contentHtml = contentHtml.replaceAll(
-                    "(?i)(src=\")([^\"]*" + escaped + ")(\")",
-                    "$1" + basePath + oldName + "$3"
-            );
+        for (StoredMedia media : imageReplacements.values()) mediaStore.attach(lesson.getId(), media);
+        for (StoredMedia media : audioReplacements.values()) mediaStore.attach(lesson.getId(), media);
+        eventPublisher.publishEvent(new LessonChangedEvent(lesson.getId(), courseId));
+        if (!lessonImages.isEmpty()) {
+            eventPublisher.publishEvent(new ImageUploadedEvent(lessonImages, ImageUploadedEvent.Kind.LESSON_IMAGE));
         }
-
-        for (String oldName : audioReplacements.keySet()) {
-            if (!oldName.toLowerCase().endsWith(".mp3")) continue;
-            String escaped = Pattern.quote(oldName);
-            contentHtml = contentHtml.replaceAll(
-                    "(?i)(src=\")([^\"]*" + escaped + ")(\")",
-                    "$1" + basePath + oldName + "$3"
-            );
-        }
-
-        contentHtml = contentHtml.replaceAll("(?i)src=\"blob:[^\"]+\"", "");
-        lesson.setContent(contentHtml);
-        lessonRepository.save(lesson);
-
     }
 
+    // Pliki trafiają do magazynu adresowanego treścią; ten sam plik w wielu lekcjach zapisywany jest raz
     private void saveUploadedFiles(List<MultipartFile> files,
                                    List<String> namesFromJs,
-                                   Path baseDir,
-                                   Map<String, String> replacements) {
+                                   Map<String, StoredMedia> replacements) {
 
         if (files == null || files.isEmpty()) return;
 
@@ -118,42 +143,44 @@ public class LessonService {
                 finalName = UUID.randomUUID() + "-" + (file.getOriginalFilename() != null ? file.getOriginalFilename() : "plik");
             }
 
-            Path destPath = baseDir.resolve(finalName);
-
-            try {
-                file.transferTo(destPath);
-                replacements.put(finalName, finalName);
-            } catch (IOException e) {
-                throw new RuntimeException("Błąd przy zapisie pliku: " + finalName, e);
-            }
+            replacements.put(finalName, mediaStore.store(file, finalName));
         }
     }
     
-    private int getLastLessonOrder(Long courseId){
-        return lessonRepository.findTopByCourseIdOrderByLessonOrderDesc(courseId)
-                .map(Lesson::getLessonOrder)
-                .orElse(0);
+    // Ukończenie z przycisku w lekcji: true = czeka w kolejce zapisu w tle
+    public boolean completeLesson(Long lessonId, Long userId) {
+        if (!slugRegistry.lessonExists(lessonId)) {
+            throw new LessonNotFoundException();
+        }
+        return lessonCompletionQueue.submit(userId, lessonId);
     }
 
-    @Transactional
-    public void markLessonAsCompleted(Long lessonId, Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(UserNotFoundException::new);
+    // Stan wielu lekcji jednym zapisem (synchronizacja klientów offline, uzupełnianie postępu przez admina)
+    public ProgressUpdateResult updateProgress(Long userId, List<LessonProgressUpdate> updates) {
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalArgumentException("Lista lekcji jest pusta");
+        }
+        if (updates.size() > MAX_PROGRESS_UPDATES) {
+            throw new IllegalArgumentException("Można zaktualizować najwyżej " + MAX_PROGRESS_UPDATES + " lekcji naraz");
+        }
+        return lessonCompletionQueue.afterPending(() -> lessonProgressWriter.apply(userId, updates));
+    }
 
+    @Transactional
+    public void deleteLesson(Long lessonId) {
         Lesson lesson = lessonRepository.findById(lessonId)
                 .orElseThrow(LessonNotFoundException::new);
+        Long courseId = lesson.getCourse().getId();
 
-        LessonProgress progress = lessonProgressRepository.findByLessonAndUser(lesson, user)
-                .orElse(new LessonProgress());
-
-        if (progress.isCompleted()) return;
-
-        progress.setCompleted(true);
-        progress.setUser(user);
-        progress.setLesson(lesson);
-
-        lessonProgressRepository.save(progress);
+        userCourseRepository.decrementCompletedLessonsForLesson(courseId, lessonId);
+        mediaStore.detachAll(lessonId);
+        lessonProgressRepository.deleteAllByLessonId(lessonId);
+        lessonRepository.delete(lesson);
+        lessonRepository.flush();
 
+        courseRepository.adjustLessonCount(courseId, -1);
+        userCourseRepository.recalculateProgressForCourse(courseId);
+        eventPublisher.publishEvent(new LessonChangedEvent(lessonId, courseId));
     }
 }
 
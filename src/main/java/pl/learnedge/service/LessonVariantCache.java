@@ -0,0 +1,96 @@
+package pl.learnedge.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+import pl.learnedge.dto.CacheStats;
+import pl.learnedge.event.LessonChangedEvent;
+import pl.learnedge.util.LearningBlockFilter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Cache treści lekcji przyciętej do stylu uczenia się, klucz: (id lekcji, wersja treści, styl).
+// Każdy wariant liczony jest raz; po edycji lekcji zmienia się wersja, a stare warianty są usuwane zdarzeniem.
+// Pełna treść lekcji (LOB) doczytywana jest tylko przy braku wariantu w cache.
+@Component
+public class LessonVariantCache {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 64;
+
+    private record VariantKey(Long lessonId, int contentVersion, int learningStyle) {
+    }
+
+    private final long maxWeightBytes;
+
+    private final LinkedHashMap<VariantKey, String> variants = new LinkedHashMap<>(64, 0.75f, true);
+    private long weightBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LessonVariantCache(@Value("${app.cache.lesson-variants.max-size:32MB}") DataSize maxSize) {
+        this.maxWeightBytes = maxSize.toBytes();
+    }
+
+    public String render(Long lessonId, int contentVersion, int learningStyle, Supplier<String> content) {
+        VariantKey key = new VariantKey(lessonId, contentVersion, learningStyle);
+        synchronized (this) {
+            String cached = variants.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        String rendered = LearningBlockFilter.filter(content.get(), learningStyle);
+        if (rendered == null) return null;
+        synchronized (this) {
+            put(key, rendered);
+        }
+        return rendered;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onLessonChanged(LessonChangedEvent event) {
+        Iterator<Map.Entry<VariantKey, String>> iterator = variants.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<VariantKey, String> entry = iterator.next();
+            if (entry.getKey().lessonId().equals(event.lessonId())) {
+                weightBytes -= weigh(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(),
+                variants.size(), weightBytes, maxWeightBytes);
+    }
+
+    private void put(VariantKey key, String rendered) {
+        String previous = variants.put(key, rendered);
+        if (previous != null) {
+            weightBytes -= weigh(previous);
+        }
+        weightBytes += weigh(rendered);
+
+        Iterator<Map.Entry<VariantKey, String>> eldest = variants.entrySet().iterator();
+        while (weightBytes > maxWeightBytes && eldest.hasNext()) {
+            Map.Entry<VariantKey, String> entry = eldest.next();
+            weightBytes -= weigh(entry.getValue());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long weigh(String rendered) {
+        return ENTRY_OVERHEAD_BYTES + 2L * rendered.length();
+    }
+}
@@ -0,0 +1,98 @@
+package pl.learnedge.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import pl.learnedge.dto.MediaStats;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Pliki przesłane przez użytkowników (katalog uploads): rozwiązywanie ścieżek, typy treści i licznik wysłanych bajtów.
+// Liczniki są kluczowane faktycznie wysłanym plikiem (nie ścieżką z żądania) i ograniczone do MAX_COUNTERS plików.
+@Service
+public class MediaService {
+
+    private static final Map<String, MediaType> MEDIA_TYPES = Map.of(
+            "m4a", MediaType.parseMediaType("audio/mp4"),
+            "mp3", MediaType.parseMediaType("audio/mpeg"),
+            "mp4", MediaType.parseMediaType("video/mp4"),
+            "webm", MediaType.parseMediaType("video/webm"),
+            "ogg", MediaType.parseMediaType("audio/ogg"),
+            "wav", MediaType.parseMediaType("audio/wav")
+    );
+
+    private static final int MAX_COUNTERS = 10_000;
+
+    private static final Pattern DERIVATIVE = Pattern.compile("^(.*)-[sw]\\d{2,4}(\\.[^./]+)$");
+
+    private record Counter(LongAdder requests, LongAdder bytes) {
+    }
+
+    private final Path root;
+    private final Path tempDir;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public MediaService(@Value("${app.media.root:uploads}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tempDir = this.root.resolve(MediaStore.TEMP_DIR);
+    }
+
+    public Optional<Path> resolve(String relativePath) {
+        Path file = root.resolve(relativePath).normalize();
+        // tmp/ to niedokończone zapisy MediaStore (.part) - nie są publiczne
+        if (!file.startsWith(root) || file.startsWith(tempDir)
+                || !Files.isRegularFile(file) || !Files.isReadable(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(file);
+    }
+
+    // Wariant obrazu (nazwa-s128.jpg, nazwa-w960.png) jeszcze niewygenerowany -> oryginał
+    public Optional<Path> resolveOrOriginal(String relativePath) {
+        return resolve(relativePath).or(() -> {
+            Matcher derivative = DERIVATIVE.matcher(relativePath);
+            return derivative.matches() ? resolve(derivative.group(1) + derivative.group(2)) : Optional.empty();
+        });
+    }
+
+    public MediaType contentType(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        MediaType known = dot > 0 ? MEDIA_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT)) : null;
+        if (known != null) return known;
+        return MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    // Po osiągnięciu limitu nowe pliki nie są już liczone; liczniki znanych plików rosną dalej
+    public void recordServed(Path file, long bytes) {
+        String key = root.relativize(file).toString().replace(File.separatorChar, '/');
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= MAX_COUNTERS) return;
+            counter = counters.computeIfAbsent(key, k -> new Counter(new LongAdder(), new LongAdder()));
+        }
+        counter.requests().increment();
+        counter.bytes().add(bytes);
+    }
+
+    public List<MediaStats> topByBytesServed(int limit) {
+        return counters.entrySet().stream()
+                .map(e -> new MediaStats(e.getKey(), e.getValue().requests().sum(), e.getValue().bytes().sum()))
+                .sorted(Comparator.comparingLong(MediaStats::bytesServed).reversed())
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,310 @@
+package pl.learnedge.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import pl.learnedge.dto.StoredMedia;
+import pl.learnedge.model.LessonMedia;
+import pl.learnedge.model.MediaBlob;
+import pl.learnedge.repository.LessonMediaRepository;
+import pl.learnedge.repository.MediaBlobRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Magazyn multimediów lekcji adresowany treścią: uploads/media/{2 znaki hasha}/{sha256}.{rozszerzenie}.
+// Ten sam plik wgrany do wielu lekcji zajmuje miejsce raz, a jego adres nigdy się nie zmienia.
+// Odwołania lekcji trzyma lesson_media; nieużywane pliki usuwa okresowe sprzątanie.
+// Plik w media/ jest tworzony i usuwany tylko w transakcji trzymającej blokadę wiersza media_blobs
+// (findByHashForUpdate), więc zatwierdzony wiersz zawsze ma swój plik - także gdy rejestracja
+// ściga się ze sprzątaniem albo z wycofaniem innej rejestracji tej samej treści.
+@Service
+@Slf4j
+public class MediaStore {
+
+    private static final String MEDIA_DIR = "media";
+    static final String TEMP_DIR = "tmp";
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,10}");
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    // Wstawienie wiersza tylko, gdy go brak: równoległa rejestracja tej samej nowej treści czeka na blokadę
+    // klucza. H2 po zatwierdzeniu cudzego wiersza zgłasza wtedy naruszenie PK - patrz insertIfAbsent()
+    private static final String INSERT_IF_ABSENT_MYSQL = """
+            INSERT INTO media_blobs (hash, extension, size, created_at, last_used_at) VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE hash = hash""";
+    private static final String INSERT_IF_ABSENT = """
+            MERGE INTO media_blobs t USING (VALUES (?, ?, ?, ?, ?)) AS s (hash, extension, size, created_at, last_used_at)
+            ON t.hash = s.hash
+            WHEN NOT MATCHED THEN INSERT (hash, extension, size, created_at, last_used_at)
+            VALUES (s.hash, s.extension, s.size, s.created_at, s.last_used_at)""";
+
+    private final MediaBlobRepository mediaBlobRepository;
+    private final LessonMediaRepository lessonMediaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate cleanupTemplate;
+    private final Path root;
+    private final Duration gracePeriod;
+    private volatile Boolean mysql;
+
+    public MediaStore(MediaBlobRepository mediaBlobRepository,
+                      LessonMediaRepository lessonMediaRepository,
+                      JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${app.media.root:uploads}") String root,
+                      @Value("${app.media.gc.grace-period:PT1H}") Duration gracePeriod) {
+        this.mediaBlobRepository = mediaBlobRepository;
+        this.lessonMediaRepository = lessonMediaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cleanupTemplate = new TransactionTemplate(transactionManager);
+        this.cleanupTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.gracePeriod = gracePeriod;
+    }
+
+    // Treść zapisana do prywatnego pliku tymczasowego (temp), jeszcze bez wiersza w media_blobs
+    public record WrittenBlob(String hash, String extension, long size, Path temp) {
+    }
+
+    public StoredMedia store(MultipartFile file, String fileName) {
+        try (InputStream in = file.getInputStream()) {
+            return register(write(in, fileName));
+        } catch (IOException e) {
+            throw new RuntimeException("Błąd przy zapisie pliku: " + fileName, e);
+        }
+    }
+
+    // SHA-256 liczony w trakcie jedynego kopiowania strumienia do pliku tymczasowego.
+    // Nie dotyka bazy ani katalogu media/, więc może działać poza transakcją i w wielu wątkach;
+    // strumienia nie zamyka. Plik tymczasowy przenosi register(), a usuwa discard().
+    public WrittenBlob write(InputStream in, String fileName) {
+        Path temp = null;
+        try {
+            Path tempDir = root.resolve(TEMP_DIR);
+            Files.createDirectories(tempDir);
+            temp = Files.createTempFile(tempDir, "upload-", ".part");
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size = Files.copy(new DigestInputStream(in, digest), temp, StandardCopyOption.REPLACE_EXISTING);
+            String hash = HexFormat.of().formatHex(digest.digest());
+            WrittenBlob written = new WrittenBlob(hash, extensionOf(fileName), size, temp);
+            temp = null;
+            return written;
+        } catch (IOException e) {
+            throw new RuntimeException("Błąd przy zapisie pliku: " + fileName, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (temp != null) deleteTemp(temp);
+        }
+    }
+
+    // Zapisuje lub odświeża wiersz media_blobs dla pliku z write(); wywoływane w transakcji zapisu lekcji.
+    // Wiersz wstawiany jest bez zapytania o istnienie (MERGE / ON DUPLICATE KEY), dopiero potem blokowany.
+    // Pod blokadą wiersza brakujący plik (nowa treść albo plik właśnie usunięty przez sprzątanie)
+    // jest przenoszony na miejsce z pliku tymczasowego.
+    public StoredMedia register(WrittenBlob written) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            boolean inserted = insertIfAbsent(written, now);
+            MediaBlob blob = mediaBlobRepository.findByHashForUpdate(written.hash())
+                    .orElseThrow(() -> new IllegalStateException("Brak wiersza media_blobs: " + written.hash()));
+            blob.setLastUsedAt(now);
+            mediaBlobRepository.saveAndFlush(blob);
+
+            Path target = blobPath(written.hash(), blob.getExtension());
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(written.temp(), target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Ta sama treść przeniesiona równolegle - plik jest identyczny
+                }
+            }
+            if (inserted) {
+                deleteOnRollback(written.hash());
+            }
+            return new StoredMedia(written.hash(), target, urlOf(written.hash(), blob.getExtension()));
+        } catch (IOException e) {
+            throw new RuntimeException("Błąd przy zapisie pliku: " + written.hash(), e);
+        } finally {
+            deleteTemp(written.temp());
+        }
+    }
+
+    // Usuwa plik tymczasowy z write(), który ostatecznie nie trafił do bazy; katalogu media/ nie dotyka
+    public void discard(WrittenBlob written) {
+        deleteTemp(written.temp());
+    }
+
+    public void attach(Long lessonId, StoredMedia media) {
+        if (!lessonMediaRepository.existsByLessonIdAndBlobHash(lessonId, media.hash())) {
+            lessonMediaRepository.save(LessonMedia.builder()
+                    .lessonId(lessonId)
+                    .blobHash(media.hash())
+                    .build());
+        }
+    }
+
+    public void detachAll(Long lessonId) {
+        lessonMediaRepository.deleteAllByLessonId(lessonId);
+    }
+
+    @Scheduled(initialDelayString = "${app.media.gc.initial-delay:PT5M}",
+            fixedDelayString = "${app.media.gc.interval:PT1H}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+        int removed = 0;
+        List<MediaBlob> candidates;
+        do {
+            candidates = mediaBlobRepository.findUnreferencedBefore(cutoff, Limit.of(SWEEP_BATCH_SIZE));
+            for (MediaBlob blob : candidates) {
+                // Pliki usuwane przed commitem, pod blokadą wiersza: rejestracja tej samej treści czeka
+                // na koniec tej transakcji i sama odtwarza plik z pliku tymczasowego
+                Boolean deleted = transactionTemplate.execute(status -> {
+                    if (mediaBlobRepository.findByHashForUpdate(blob.getHash()).isEmpty()
+                            || mediaBlobRepository.deleteIfUnreferenced(blob.getHash(), cutoff) == 0) {
+                        return false;
+                    }
+                    deleteBlobFiles(blob.getHash());
+                    return true;
+                });
+                if (Boolean.TRUE.equals(deleted)) {
+                    removed++;
+                }
+            }
+        } while (candidates.size() == SWEEP_BATCH_SIZE);
+
+        removed += sweepStaleTempFiles();
+        if (removed > 0) {
+            log.info("Media sweep removed {} unreferenced file(s)", removed);
+        }
+    }
+
+    private Path blobPath(String hash, String extension) {
+        return blobDirectory(hash).resolve(hash + "." + extension);
+    }
+
+    private Path blobDirectory(String hash) {
+        return root.resolve(MEDIA_DIR).resolve(hash.substring(0, 2));
+    }
+
+    private static String urlOf(String hash, String extension) {
+        return "/uploads/" + MEDIA_DIR + "/" + hash.substring(0, 2) + "/" + hash + "." + extension;
+    }
+
+    private static String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot >= 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        return EXTENSION.matcher(extension).matches() ? extension : "bin";
+    }
+
+    // Wiersz wstawiony w transakcji, która się wycofała, zniknął - plik usuwamy w nowej transakcji pod
+    // blokadą klucza, tylko jeśli w międzyczasie nikt inny nie zarejestrował tej samej treści
+    // MySQL (CLIENT_FOUND_ROWS) zwraca 1 także dla istniejącego wiersza - sprzątanie po wycofaniu
+    // i tak sprawdza pod blokadą, czy wiersz przetrwał, więc nadmiarowa rejestracja niczego nie psuje.
+    // Naruszenie PK dotyczy tylko tego polecenia (JDBC, poza kontekstem Hibernate) - transakcja działa dalej,
+    // a wiersz zatwierdzony przez drugą rejestrację jest już widoczny dla findByHashForUpdate.
+    private boolean insertIfAbsent(WrittenBlob written, LocalDateTime now) {
+        try {
+            return jdbcTemplate.update(isMysql() ? INSERT_IF_ABSENT_MYSQL : INSERT_IF_ABSENT,
+                    written.hash(), written.extension(), written.size(), now, now) > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private boolean isMysql() {
+        if (mysql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            mysql = product != null && product.toLowerCase(Locale.ROOT).contains("mysql");
+        }
+        return mysql;
+    }
+
+    private void deleteOnRollback(String hash) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) return;
+                try {
+                    cleanupTemplate.executeWithoutResult(tx -> {
+                        if (mediaBlobRepository.findByHashForUpdate(hash).isEmpty()) {
+                            deleteBlobFiles(hash);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    log.warn("Could not clean up rolled back upload {}", hash, e);
+                }
+            }
+        });
+    }
+
+    // Usuwa plik i jego pomniejszone warianty (hash-w960.png itd.) - niezależnie od rozszerzenia
+    private void deleteBlobFiles(String hash) {
+        Path directory = blobDirectory(hash);
+        if (!Files.isDirectory(directory)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, hash + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete media files for {}", hash, e);
+        }
+    }
+
+    private static void deleteTemp(Path temp) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary upload {}", temp, e);
+        }
+    }
+
+    private int sweepStaleTempFiles() {
+        Path tempDir = root.resolve(TEMP_DIR);
+        if (!Files.isDirectory(tempDir)) return 0;
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tempDir, "upload-*.part")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep temporary uploads in {}", tempDir, e);
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,134 @@
+package pl.learnedge.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import pl.learnedge.dto.PasswordHashingStats;
+import pl.learnedge.exception.PasswordHashingBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// BCrypt (logowanie, rejestracja, zmiana i reset hasła) na osobnej puli o rozmiarze liczby rdzeni,
+// żeby fala logowań nie zajęła wszystkich wątków serwera i nie blokowała zwykłych stron.
+// Gdy kolejka jest pełna albo zadanie czeka dłużej niż max-wait, wywołujący od razu dostaje
+// PasswordHashingBusyException (503) zamiast czekać dalej.
+@Service
+public class PasswordHasher implements PasswordEncoder {
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    public PasswordHasher(@Value("${app.security.password-hashing.strength:10}") int strength,
+                          @Value("${app.security.password-hashing.workers:0}") int workers,
+                          @Value("${app.security.password-hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${app.security.password-hashing.max-wait:PT2S}") Duration maxWait) {
+        this.bcrypt = new BCryptPasswordEncoder(strength);
+        this.maxWaitNanos = maxWait.toNanos();
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    // Hasz o niższym koszcie niż strength jest przepisywany przy logowaniu (DaoAuthenticationProvider)
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    public PasswordHashingStats stats() {
+        long count = completed.sum();
+        return new PasswordHashingStats(count, rejected.sum(), timedOut.sum(),
+                executor.getActiveCount(), executor.getQueue().size(),
+                count == 0 ? 0 : hashNanos.sum() / 1e6 / count,
+                maxHashNanos.get() / 1e6,
+                count == 0 ? 0 : waitNanos.sum() / 1e6 / count);
+    }
+
+    private <T> T run(Supplier<T> hashing) {
+        long submitted = System.nanoTime();
+        FutureTask<T> task = new FutureTask<>(() -> {
+            long started = System.nanoTime();
+            try {
+                return hashing.get();
+            } finally {
+                long elapsed = System.nanoTime() - started;
+                waitNanos.add(started - submitted);
+                hashNanos.add(elapsed);
+                maxHashNanos.accumulateAndGet(elapsed, Math::max);
+                completed.increment();
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException();
+        }
+
+        try {
+            return task.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Zadanie jeszcze w kolejce nie zostanie już wykonane i od razu zwalnia w niej miejsce
+            cancel(task);
+            timedOut.increment();
+            throw new PasswordHashingBusyException();
+        } catch (InterruptedException e) {
+            cancel(task);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Przerwano haszowanie hasła", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException("Błąd haszowania hasła", e.getCause());
+        }
+    }
+
+    // Anulowane zadanie zostałoby w kolejce, dopóki nie pobierze go wątek, i powodowało odrzucanie nowych
+    private void cancel(FutureTask<?> task) {
+        task.cancel(false);
+        executor.remove(task);
+    }
+}
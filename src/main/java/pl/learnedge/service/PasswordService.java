@@ -2,9 +2,6 @@ package pl.learnedge.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +23,7 @@ public class PasswordService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final PasswordResetTokenRepository tokenRepo;
+    private final AuthService authService;
 
     private static final SecureRandom RANDOM = new SecureRandom();
 
@@ -96,25 +94,10 @@ public class PasswordService {
         log.info("Password changed for user: {}", user.getUsername());
     }
 
+    // Hasło wymaga encji; id pochodzi z kontekstu zalogowanego użytkownika
     private User getAuthenticatedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new IllegalStateException("Użytkownik nie jest zalogowany");
-        }
-
-        String username;
-        Object principal = authentication.getPrincipal();
-        if (principal instanceof UserDetails ud) {
-            username = ud.getUsername();
-        } else if (principal instanceof String s) {
-            username = s;
-        } else if (principal instanceof User u) {
-            username = u.getUsername();
-        } else {
-            throw new IllegalStateException("Nie można rozpoznać użytkownika");
-        }
-
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Nie znaleziono użytkownika: " + username));
+        Long userId = authService.getCurrentUserId();
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalStateException("Nie znaleziono użytkownika: " + userId));
     }
 }
@@ -2,11 +2,10 @@ package pl.learnedge.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import pl.learnedge.event.ImageUploadedEvent;
 import pl.learnedge.model.User;
 import pl.learnedge.repository.UserRepository;
 
@@ -14,6 +13,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -21,6 +21,8 @@ import java.util.UUID;
 public class ProfilePictureService {
 
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuthService authService;
 
     @Value("${app.upload.dir:uploads/profile-pictures}")
     private String uploadDir;
@@ -66,9 +68,12 @@ public class ProfilePictureService {
             System.out.println("Setting profile picture public URL: " + publicUrl);
             
             currentUser.setProfilePicture(publicUrl);
-            userRepository.save(currentUser);
+            authService.refreshPrincipal(userRepository.save(currentUser));
             System.out.println("User profile updated in database");
 
+            // Awatary 64/128/256 px generowane w tle
+            eventPublisher.publishEvent(new ImageUploadedEvent(List.of(filePath), ImageUploadedEvent.Kind.AVATAR));
+
             // Return public URL for immediate display
             return publicUrl;
         } catch (IOException e) {
@@ -77,28 +82,9 @@ public class ProfilePictureService {
     }
 
     private User getAuthenticatedUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated()) {
-            throw new RuntimeException("Brak zalogowanego użytkownika");
-        }
-        Object principal = auth.getPrincipal();
-        if (principal instanceof org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser oidcUser) {
-            String email = oidcUser.getEmail();
-            return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Użytkownik nie został znaleziony: " + email));
-        } else if (principal instanceof UserDetails ud) {
-            String username = ud.getUsername();
-            return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Użytkownik nie został znaleziony: " + username));
-        } else if (principal instanceof User u) {
-            String username = u.getUsername();
-            return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Użytkownik nie został znaleziony: " + username));
-        } else {
-            String username = auth.getName();
-            return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Użytkownik nie został znaleziony: " + username));
-        }
+        Long userId = authService.getCurrentUserId();
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Użytkownik nie został znaleziony: " + userId));
     }
 
     private String getFileExtension(String filename) {
@@ -0,0 +1,55 @@
+package pl.learnedge.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.learnedge.repository.CourseRepository;
+import pl.learnedge.repository.UserCourseRepository;
+
+// Naprawia rozjazdy liczników postępu (lesson_count, completed_lessons, progress) względem lesson_progress.
+// Enrollmenty poprawiane są paczkami po zakresach id, każda paczka w osobnej transakcji.
+@Service
+@Slf4j
+public class ProgressReconciliationService {
+
+    private final CourseRepository courseRepository;
+    private final UserCourseRepository userCourseRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.progress.reconciliation.batch-size:500}")
+    private int batchSize;
+
+    public ProgressReconciliationService(CourseRepository courseRepository,
+                                         UserCourseRepository userCourseRepository,
+                                         PlatformTransactionManager transactionManager) {
+        this.courseRepository = courseRepository;
+        this.userCourseRepository = userCourseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${app.progress.reconciliation.initial-delay:PT1M}",
+            fixedDelayString = "${app.progress.reconciliation.interval:PT15M}")
+    public void reconcile() {
+        Integer fixedCourses = transactionTemplate.execute(status -> courseRepository.reconcileLessonCounts());
+
+        long maxId = userCourseRepository.findMaxId().orElse(0L);
+        int fixedEnrollments = 0;
+        for (long fromId = 0; fromId < maxId; fromId += batchSize) {
+            long from = fromId;
+            long to = Math.min(fromId + batchSize, maxId);
+            Integer fixed = transactionTemplate.execute(status -> {
+                int drifted = userCourseRepository.reconcileCompletedLessons(from, to);
+                userCourseRepository.reconcileProgress(from, to);
+                return drifted;
+            });
+            fixedEnrollments += fixed != null ? fixed : 0;
+        }
+
+        if ((fixedCourses != null && fixedCourses > 0) || fixedEnrollments > 0) {
+            log.warn("Progress reconciliation fixed {} course counters and {} enrollments", fixedCourses, fixedEnrollments);
+        }
+    }
+}
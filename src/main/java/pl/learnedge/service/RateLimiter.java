@@ -0,0 +1,111 @@
+package pl.learnedge.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Kubełki żetonów w pamięci procesu, po jednym na klucz (np. "login|ip|10.0.0.1").
+// Stan kubełka to jedna liczba - teoretyczny czas następnego żądania (GCRA) - zmieniana przez CAS, bez blokad.
+// Klucze rozłożone są na STRIPES niezależnych map; pełny kubełek nie niesie żadnej informacji,
+// więc sprzątanie usuwa go bez zmiany działania limitu.
+@Service
+public class RateLimiter {
+
+    private static final int STRIPES = 64;
+
+    // permits żądań na period, z możliwością wykorzystania całej puli naraz
+    public record Limit(int permits, Duration period) {
+
+        public Limit {
+            if (permits <= 0 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Nieprawidłowy limit: " + permits + "/" + period);
+            }
+        }
+
+        // Format z application.yml: "20/PT1M"; pusty = bez limitu
+        public static Limit parse(String value) {
+            if (value == null || value.isBlank()) return null;
+            int slash = value.indexOf('/');
+            if (slash < 0) throw new IllegalArgumentException("Nieprawidłowy limit (oczekiwano np. 20/PT1M): " + value);
+            return new Limit(Integer.parseInt(value.substring(0, slash).trim()),
+                    Duration.parse(value.substring(slash + 1).trim()));
+        }
+
+        long intervalNanos() {
+            return period.toNanos() / permits;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes = new ConcurrentHashMap[STRIPES];
+
+    public RateLimiter() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    // 0 = żądanie dozwolone, w przeciwnym razie nanosekundy do zwolnienia miejsca
+    public long tryAcquire(String key, Limit limit) {
+        return tryAcquire(key, limit, System.nanoTime());
+    }
+
+    long tryAcquire(String key, Limit limit, long now) {
+        long interval = limit.intervalNanos();
+        long tolerance = interval * (limit.permits() - 1);
+        ConcurrentHashMap<String, AtomicLong> stripe = stripe(key);
+        AtomicLong bucket = stripe.get(key);
+        if (bucket == null) {
+            AtomicLong created = new AtomicLong(now);
+            AtomicLong existing = stripe.putIfAbsent(key, created);
+            bucket = existing != null ? existing : created;
+        }
+        while (true) {
+            long next = bucket.get();
+            long wait = next - tolerance - now;
+            if (wait > 0) return wait;
+            if (bucket.compareAndSet(next, Math.max(next - now, 0) + now + interval)) return 0;
+        }
+    }
+
+    // Jak tryAcquire, ale bez zużycia żetonu: 0 = w kubełku jest miejsce
+    public long waitTime(String key, Limit limit) {
+        return waitTime(key, limit, System.nanoTime());
+    }
+
+    long waitTime(String key, Limit limit, long now) {
+        AtomicLong bucket = stripe(key).get(key);
+        if (bucket == null) return 0;
+        return Math.max(bucket.get() - limit.intervalNanos() * (limit.permits() - 1) - now, 0);
+    }
+
+    @Scheduled(initialDelayString = "${app.rate-limit.eviction-interval:PT1M}",
+            fixedDelayString = "${app.rate-limit.eviction-interval:PT1M}")
+    public void evictIdle() {
+        evictIdle(System.nanoTime());
+    }
+
+    // Żądanie, które zdąży jeszcze zmienić usuwany kubełek, nie zostanie policzone - w zamian
+    // sprzątanie nie potrzebuje blokad
+    void evictIdle(long now) {
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            stripe.values().removeIf(bucket -> bucket.get() - now <= 0);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,264 @@
+package pl.learnedge.service;
+
+import pl.learnedge.util.SearchText;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Odwrócony indeks w pamięci: term -> posortowane numery dokumentów z wagami (tablice prymitywów).
+// Dokumenty dostają rosnące numery, więc dopisywanie zachowuje porządek list; ponowne indeksowanie
+// usuwa stare wpisy dokumentu z list i nadaje nowy numer. Gdy zwolnionych numerów jest więcej niż
+// żywych dokumentów, numeracja jest zagęszczana, żeby tablice wyników zapytania nie rosły bez końca.
+public class SearchIndex {
+
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_FREE_TO_COMPACT = 64;
+    private static final float PREFIX_MATCH_FACTOR = 0.6f;
+
+    public enum DocumentType { COURSE, LESSON }
+
+    public record Document(DocumentType type, Long entityId, String title, String url, String context) {
+    }
+
+    public record Field(String text, float boost) {
+    }
+
+    public record Hit(DocumentType type, Long id, String title, String url, String context, double score) {
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private float[] weights = new float[2];
+        private int size;
+
+        private void add(int doc, float weight) {
+            if (size > 0 && docs[size - 1] == doc) {
+                weights[size - 1] += weight;
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        private void remove(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i < 0) return;
+            System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+            System.arraycopy(weights, i + 1, weights, i, size - i - 1);
+            size--;
+        }
+    }
+
+    // Dokument z listą swoich termów, potrzebną przy usuwaniu
+    private record Entry(Document document, String[] terms) {
+    }
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final List<Entry> documents = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(Document document, List<Field> fields) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(document.type(), document.entityId());
+            int ordinal = documents.size();
+            Set<String> documentTerms = new LinkedHashSet<>();
+            for (Field field : fields) {
+                for (String token : SearchText.tokenize(field.text())) {
+                    terms.computeIfAbsent(token, t -> new Postings()).add(ordinal, field.boost());
+                    documentTerms.add(token);
+                }
+            }
+            documents.add(new Entry(document, documentTerms.toArray(String[]::new)));
+            ordinals.put(key(document.type(), document.entityId()), ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(DocumentType type, Long entityId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(type, entityId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            documents.clear();
+            ordinals.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Hit> search(String query, int limit) {
+        List<String> tokens = SearchText.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int liveDocuments = Math.max(1, ordinals.size());
+            float[] scores = new float[documents.size()];
+            int[] matchedTokens = new int[documents.size()];
+            int[] lastToken = new int[documents.size()];
+            Arrays.fill(lastToken, -1);
+            int[] touched = new int[16];
+            int touchedCount = 0;
+
+            for (int t = 0; t < tokens.size(); t++) {
+                String token = tokens.get(t);
+                Map<String, Postings> matches = t == tokens.size() - 1
+                        ? prefixMatches(token)
+                        : exactMatch(token);
+
+                for (Map.Entry<String, Postings> match : matches.entrySet()) {
+                    Postings postings = match.getValue();
+                    float idf = (float) Math.log(1.0 + (double) liveDocuments / postings.size);
+                    float factor = match.getKey().equals(token) ? 1.0f : PREFIX_MATCH_FACTOR;
+                    for (int i = 0; i < postings.size; i++) {
+                        int doc = postings.docs[i];
+                        if (scores[doc] == 0f && matchedTokens[doc] == 0) {
+                            if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                            touched[touchedCount++] = doc;
+                        }
+                        scores[doc] += (1f + (float) Math.log(postings.weights[i])) * idf * factor;
+                        if (lastToken[doc] != t) {
+                            lastToken[doc] = t;
+                            matchedTokens[doc]++;
+                        }
+                    }
+                }
+            }
+
+            PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(doc -> scores[doc]));
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                float coverage = (float) matchedTokens[doc] / tokens.size();
+                scores[doc] *= coverage * coverage;
+                best.add(doc);
+                if (best.size() > limit) best.poll();
+            }
+
+            List<Hit> hits = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                int doc = best.poll();
+                Document d = documents.get(doc).document();
+                hits.add(new Hit(d.type(), d.entityId(), d.title(), d.url(), d.context(), scores[doc]));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        List<String> tokens = SearchText.tokenize(prefix);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+        String last = tokens.get(tokens.size() - 1);
+
+        lock.readLock().lock();
+        try {
+            return prefixMatches(last).entrySet().stream()
+                    .sorted(Comparator.comparingInt((Map.Entry<String, Postings> e) -> e.getValue().size).reversed())
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Postings> exactMatch(String token) {
+        Postings postings = terms.get(token);
+        return postings != null ? Map.of(token, postings) : Map.of();
+    }
+
+    private Map<String, Postings> prefixMatches(String prefix) {
+        Map<String, Postings> matches = new LinkedHashMap<>();
+        for (Map.Entry<String, Postings> entry : terms.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix) || matches.size() >= MAX_PREFIX_EXPANSIONS) break;
+            matches.put(entry.getKey(), entry.getValue());
+        }
+        return matches;
+    }
+
+    // Liczba różnych termów w indeksie
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Liczba nadanych numerów dokumentów (żywe i zwolnione), czyli rozmiar tablic wyników zapytania
+    int ordinalCapacity() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(DocumentType type, Long entityId) {
+        Integer previous = ordinals.remove(key(type, entityId));
+        if (previous == null) return;
+        for (String term : documents.get(previous).terms()) {
+            Postings postings = terms.get(term);
+            postings.remove(previous);
+            if (postings.size == 0) terms.remove(term);
+        }
+        documents.set(previous, null);
+
+        int free = documents.size() - ordinals.size();
+        if (free >= MIN_FREE_TO_COMPACT && free > ordinals.size()) {
+            compactLocked();
+        }
+    }
+
+    // Nowa numeracja zachowuje kolejność, więc listy dokumentów pozostają posortowane
+    private void compactLocked() {
+        int[] remap = new int[documents.size()];
+        List<Entry> live = new ArrayList<>(ordinals.size());
+        for (int i = 0; i < documents.size(); i++) {
+            Entry entry = documents.get(i);
+            remap[i] = live.size();
+            if (entry != null) live.add(entry);
+        }
+        for (Postings postings : terms.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                postings.docs[i] = remap[postings.docs[i]];
+            }
+        }
+        ordinals.replaceAll((key, ordinal) -> remap[ordinal]);
+        documents.clear();
+        documents.addAll(live);
+    }
+
+    private static String key(DocumentType type, Long entityId) {
+        return type.name() + ':' + entityId;
+    }
+}
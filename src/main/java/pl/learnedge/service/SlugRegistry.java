@@ -0,0 +1,170 @@
+package pl.learnedge.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.learnedge.dto.CourseSlug;
+import pl.learnedge.dto.LessonSlug;
+import pl.learnedge.event.CourseChangedEvent;
+import pl.learnedge.event.LessonChangedEvent;
+import pl.learnedge.repository.CourseRepository;
+import pl.learnedge.repository.LessonRepository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Rejestr slugów w pamięci: slug kursu -> id oraz (id kursu, slug lekcji) -> id lekcji.
+// Ładowany przy starcie i aktualizowany zdarzeniami po zapisie; przy braku wpisu (np. kurs dodany
+// na innym węźle) pyta bazę i zapamiętuje wynik. Nowe slugi rezerwowane są tu, więc kolizje
+// dostają przyrostek -2, -3... już przy tworzeniu.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SlugRegistry {
+
+    private record LessonKey(Long courseId, String slug) {
+    }
+
+    private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+
+    private final Map<String, Long> courseIds = new ConcurrentHashMap<>();
+    private final Map<Long, String> courseSlugs = new ConcurrentHashMap<>();
+    private final Map<LessonKey, Long> lessonIds = new ConcurrentHashMap<>();
+    private final Map<Long, LessonKey> lessonKeys = new ConcurrentHashMap<>();
+
+    // Slugi przydzielone w trwających transakcjach, jeszcze niewidoczne w bazie
+    private final Set<String> reservedCourseSlugs = ConcurrentHashMap.newKeySet();
+    private final Set<LessonKey> reservedLessonSlugs = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        courseRepository.findAllSlugs().forEach(this::putCourse);
+        lessonRepository.findAllSlugs().forEach(this::putLesson);
+        log.info("Slug registry loaded: {} courses, {} lessons in {} ms",
+                courseSlugs.size(), lessonKeys.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        removeCourse(event.courseId());
+        courseRepository.findSlugById(event.courseId()).ifPresent(this::putCourse);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLessonChanged(LessonChangedEvent event) {
+        removeLesson(event.lessonId());
+        lessonRepository.findSlugById(event.lessonId()).ifPresent(this::putLesson);
+    }
+
+    public Optional<Long> findCourseId(String slug) {
+        Long id = courseIds.get(slug);
+        if (id != null) return Optional.of(id);
+        return courseRepository.findSlugsBySlug(slug, Limit.of(1)).stream()
+                .findFirst()
+                .map(course -> {
+                    if (committedRead()) putCourse(course);
+                    return course.id();
+                });
+    }
+
+    public Optional<Long> findLessonId(String courseSlug, String lessonSlug) {
+        return findCourseId(courseSlug).flatMap(courseId -> findLessonId(courseId, lessonSlug));
+    }
+
+    public Optional<Long> findLessonId(Long courseId, String slug) {
+        Long id = lessonIds.get(new LessonKey(courseId, slug));
+        if (id != null) return Optional.of(id);
+        return lessonRepository.findSlugsByCourseIdAndSlug(courseId, slug, Limit.of(1)).stream()
+                .findFirst()
+                .map(lesson -> {
+                    if (committedRead()) putLesson(lesson);
+                    return lesson.id();
+                });
+    }
+
+    public boolean lessonExists(Long lessonId) {
+        return lessonKeys.containsKey(lessonId) || lessonRepository.existsById(lessonId);
+    }
+
+    // Wolny slug kursu; rezerwacja trwa do końca bieżącej transakcji
+    public String reserveCourseSlug(String base) {
+        String slug = base == null || base.isBlank() ? "kurs" : base;
+        String candidate = slug;
+        for (int suffix = 2; courseSlugTaken(candidate) || !reservedCourseSlugs.add(candidate); suffix++) {
+            candidate = slug + "-" + suffix;
+        }
+        releaseAfterTransaction(reservedCourseSlugs, candidate);
+        return candidate;
+    }
+
+    // Wolny slug lekcji w obrębie kursu; rezerwacja trwa do końca bieżącej transakcji
+    public String reserveLessonSlug(Long courseId, String base) {
+        String slug = base == null || base.isBlank() ? "lekcja" : base;
+        LessonKey candidate = new LessonKey(courseId, slug);
+        for (int suffix = 2; lessonSlugTaken(candidate) || !reservedLessonSlugs.add(candidate); suffix++) {
+            candidate = new LessonKey(courseId, slug + "-" + suffix);
+        }
+        releaseAfterTransaction(reservedLessonSlugs, candidate);
+        return candidate.slug();
+    }
+
+    // Wiersz odczytany w transakcji piszącej może jeszcze zostać wycofany - takiego nie zapamiętujemy
+    private static boolean committedRead() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private boolean courseSlugTaken(String slug) {
+        return courseIds.containsKey(slug) || courseRepository.existsBySlug(slug);
+    }
+
+    private boolean lessonSlugTaken(LessonKey key) {
+        return lessonIds.containsKey(key) || lessonRepository.existsByCourseIdAndSlug(key.courseId(), key.slug());
+    }
+
+    // Zdarzenia po commicie dopisują slug do rejestru przed afterCompletion, więc nie ma okna,
+    // w którym slug nie jest ani zarezerwowany, ani znany
+    private <T> void releaseAfterTransaction(Set<T> reserved, T value) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reserved.remove(value);
+            throw new IllegalStateException("Rezerwacja sluga wymaga aktywnej transakcji");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                reserved.remove(value);
+            }
+        });
+    }
+
+    private void putCourse(CourseSlug course) {
+        courseSlugs.put(course.id(), course.slug());
+        courseIds.putIfAbsent(course.slug(), course.id());
+    }
+
+    private void removeCourse(Long courseId) {
+        String slug = courseSlugs.remove(courseId);
+        if (slug != null) courseIds.remove(slug, courseId);
+    }
+
+    private void putLesson(LessonSlug lesson) {
+        LessonKey key = new LessonKey(lesson.courseId(), lesson.slug());
+        lessonKeys.put(lesson.id(), key);
+        lessonIds.putIfAbsent(key, lesson.id());
+    }
+
+    private void removeLesson(Long lessonId) {
+        LessonKey key = lessonKeys.remove(lessonId);
+        if (key != null) lessonIds.remove(key, lessonId);
+    }
+}
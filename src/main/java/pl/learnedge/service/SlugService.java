@@ -2,16 +2,113 @@ package pl.learnedge.service;
 
 import org.springframework.stereotype.Service;
 
+import java.text.Normalizer;
+
+// Slug z tytułu w jednym przebiegu po tablicy znaków (U+0000-U+024F: ASCII, Latin-1, Latin Extended-A/B):
+// - litery i cyfry ASCII zostają (małe), polskie i inne litery łacińskie tracą znaki diakrytyczne,
+// - ciąg białych znaków i myślników (także rozdzielony usuniętymi znakami) daje jeden "-",
+// - pozostałe znaki są pomijane.
+// Dla tytułów z ASCII i polskich liter wynik jest identyczny z dawnym łańcuchem replaceAll.
 @Service
 public class SlugService {
+
+    // Kolumna slug ma 255 znaków; zapas na przyrostek -2, -3... z SlugRegistry
+    static final int MAX_LENGTH = 240;
+
+    private static final int TABLE_SIZE = 0x250;
+
+    // Znacznik separatora - porównywany przez referencję
+    private static final String SEPARATOR = "-";
+
+    // Znak -> fragment sluga; null = znak pomijany
+    private static final String[] TABLE = buildTable();
+
     public String generateSlug(String title) {
         if (title == null) return "";
-        return title.toLowerCase()
-                .replaceAll("ą", "a").replaceAll("ć", "c").replaceAll("ę", "e")
-                .replaceAll("ł", "l").replaceAll("ń", "n").replaceAll("ó", "o")
-                .replaceAll("ś", "s").replaceAll("ź", "z").replaceAll("ż", "z")
-                .replaceAll("[^a-z0-9\\s-]", "")
-                .replaceAll("\\s+", "-")
-                .replaceAll("-{2,}", "-");
+        int length = title.length();
+        // Jeden znak wejścia daje najwyżej dwa znaki wyjścia (ß -> ss, æ -> ae)
+        char[] out = new char[Math.min(length * 2, MAX_LENGTH)];
+        int size = 0;
+        boolean truncated = false;
+
+        for (int i = 0; i < length; i++) {
+            String part = map(title.charAt(i));
+            if (part == null) continue;
+            if (part == SEPARATOR) {
+                if (size > 0 && out[size - 1] == '-') continue;
+            }
+            if (size + part.length() > out.length) {
+                truncated = true;
+                break;
+            }
+            for (int j = 0; j < part.length(); j++) {
+                out[size++] = part.charAt(j);
+            }
+        }
+        if (truncated) {
+            while (size > 0 && out[size - 1] == '-') size--;
+        }
+        return new String(out, 0, size);
+    }
+
+    private static String map(char c) {
+        if (c < TABLE_SIZE) return TABLE[c];
+        // Poza tablicą tylko znak Kelvina zamienia się na literę ASCII przy zmianie wielkości liter
+        char lower = Character.toLowerCase(c);
+        return lower >= 'a' && lower <= 'z' ? TABLE[lower] : null;
+    }
+
+    private static String[] buildTable() {
+        String[] table = new String[TABLE_SIZE];
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                table[c] = String.valueOf(c);
+            } else if (c >= 'A' && c <= 'Z') {
+                table[c] = String.valueOf((char) (c + ('a' - 'A')));
+            } else if (c == '-' || c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r') {
+                // Białe znaki jak \s w wyrażeniach regularnych Javy
+                table[c] = SEPARATOR;
+            } else {
+                int type = Character.getType(c);
+                if (type == Character.UPPERCASE_LETTER || type == Character.LOWERCASE_LETTER
+                        || type == Character.TITLECASE_LETTER) {
+                    table[c] = transliterate(c);
+                }
+            }
+        }
+        // Litery bez rozkładu kanonicznego
+        put(table, "ss", 'ß');
+        put(table, "ae", 'æ', 'Æ', 'ǽ', 'Ǽ', 'ǣ', 'Ǣ');
+        put(table, "oe", 'œ', 'Œ');
+        put(table, "th", 'þ', 'Þ');
+        put(table, "l", 'ł', 'Ł', 'ƚ', 'Ƚ');
+        put(table, "o", 'ø', 'Ø', 'ǿ', 'Ǿ');
+        put(table, "d", 'đ', 'Đ', 'ð', 'Ð', 'ƌ', 'Ƌ', 'Ɖ', 'Ɗ');
+        put(table, "h", 'ħ', 'Ħ');
+        put(table, "i", 'ı', 'Ɨ');
+        put(table, "k", 'ĸ');
+        put(table, "n", 'ŋ', 'Ŋ');
+        put(table, "t", 'ŧ', 'Ŧ', 'ƭ', 'Ƭ');
+        put(table, "b", 'ƀ', 'Ƀ', 'Ɓ', 'ƃ', 'Ƃ');
+        put(table, "f", 'ƒ', 'Ƒ');
+        return table;
+    }
+
+    // Rozkład zgodności (NFKD) bez znaków łączących: é -> e, ĳ -> ij, İ -> i
+    private static String transliterate(char c) {
+        String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFKD);
+        StringBuilder ascii = new StringBuilder(2);
+        for (int i = 0; i < decomposed.length(); i++) {
+            char d = decomposed.charAt(i);
+            if (d >= 'a' && d <= 'z') ascii.append(d);
+            else if (d >= 'A' && d <= 'Z') ascii.append((char) (d + ('a' - 'A')));
+        }
+        return ascii.length() > 0 && ascii.length() <= 2 ? ascii.toString() : null;
+    }
+
+    private static void put(String[] table, String value, char... chars) {
+        for (char c : chars) {
+            if (c < TABLE_SIZE) table[c] = value;
+        }
     }
 }
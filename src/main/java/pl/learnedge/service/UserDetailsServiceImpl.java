@@ -4,11 +4,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import pl.learnedge.exception.UserNotFoundException;
+import pl.learnedge.model.User;
 import pl.learnedge.repository.UserRepository;
 
 import java.util.List;
@@ -16,7 +18,7 @@ import java.util.List;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository users;
 
@@ -29,4 +31,13 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                     return new UserNotFoundException();
                 });
     }
+
+    // Hasz przepisany po udanym logowaniu, gdy podniesiono koszt BCrypt (app.security.password-hashing.strength)
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = (User) user;
+        entity.setPassword(newPassword);
+        log.info("Password hash upgraded for user: {}", entity.getUsername());
+        return users.save(entity);
+    }
 }
@@ -0,0 +1,45 @@
+package pl.learnedge.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.StringJoiner;
+
+// Warunkowe GET dla stron zależnych od wersji treści i danych użytkownika.
+// Strona jest prywatna i zawsze rewalidowana (no-cache), więc przeglądarka odsyła If-None-Match,
+// a przy zgodnym ETagu kontroler zwraca 304 bez ładowania treści i renderowania szablonu.
+public final class ETags {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private ETags() {
+    }
+
+    public static String of(Object... parts) {
+        StringJoiner etag = new StringJoiner("-", "\"", "\"");
+        for (Object part : parts) {
+            etag.add(String.valueOf(part));
+        }
+        return etag.toString();
+    }
+
+    // Sesja zmienia się przy logowaniu, a razem z nią token CSRF osadzony w formularzach strony
+    public static String sessionFingerprint(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null ? Integer.toHexString(session.getId().hashCode()) : "0";
+    }
+
+    // ETag ma pierwszeństwo przed If-Modified-Since, więc dane użytkownika nieobecne w dacie nie gubią się
+    public static boolean checkNotModified(ServletWebRequest request, String etag, LocalDateTime lastModified) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        long lastModifiedMillis = lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return request.checkNotModified(etag, lastModifiedMillis);
+    }
+}
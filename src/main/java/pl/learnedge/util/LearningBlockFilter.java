@@ -0,0 +1,143 @@
+package pl.learnedge.util;
+
+import java.util.Set;
+
+// Wycina z HTML lekcji bloki data-learning, które nie są przeznaczone dla danego stylu uczenia się.
+// Ta sama reguła co w learning-visibility.js: "0" = dla wszystkich, kilka stylów po przecinku ("1,3").
+public final class LearningBlockFilter {
+
+    private static final String ATTRIBUTE = "data-learning";
+
+    private static final Set<String> VOID_ELEMENTS = Set.of(
+            "area", "br", "col", "embed", "hr", "img", "input", "link", "meta", "source", "track", "wbr"
+    );
+
+    private LearningBlockFilter() {
+    }
+
+    public static String filter(String html, int learningStyle) {
+        if (html == null || !html.contains(ATTRIBUTE)) return html;
+        String style = Integer.toString(learningStyle);
+
+        StringBuilder out = new StringBuilder(html.length());
+        int copied = 0;
+        int i = 0;
+        int length = html.length();
+        while (i < length) {
+            int open = html.indexOf('<', i);
+            if (open < 0) break;
+            int close = tagEnd(html, open);
+            if (close < 0) break;
+
+            String name = openingTagName(html, open);
+            if (name != null) {
+                String value = attributeValue(html, open + 1 + name.length(), close);
+                if (value != null && !matches(value, style)) {
+                    boolean selfClosing = VOID_ELEMENTS.contains(name) || html.charAt(close - 1) == '/';
+                    int end = selfClosing ? close + 1 : elementEnd(html, name, close + 1);
+                    out.append(html, copied, open);
+                    copied = end;
+                    i = end;
+                    continue;
+                }
+            }
+            i = close + 1;
+        }
+        out.append(html, copied, length);
+        return out.toString();
+    }
+
+    private static boolean matches(String value, String style) {
+        for (String part : value.split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.equals("0") || trimmed.equals(style)) return true;
+        }
+        return false;
+    }
+
+    // Indeks '>' kończącego tag (z pominięciem '>' w cudzysłowach) albo -1
+    private static int tagEnd(String html, int open) {
+        if (html.startsWith("<!--", open)) {
+            int end = html.indexOf("-->", open + 4);
+            return end < 0 ? -1 : end + 2;
+        }
+        char quote = 0;
+        for (int i = open + 1; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String openingTagName(String html, int open) {
+        int start = open + 1;
+        if (start >= html.length() || !Character.isLetter(html.charAt(start))) return null;
+        int end = start;
+        while (end < html.length() && (Character.isLetterOrDigit(html.charAt(end)) || html.charAt(end) == '-')) end++;
+        return html.substring(start, end).toLowerCase();
+    }
+
+    private static String attributeValue(String html, int from, int close) {
+        int i = from;
+        while (i < close) {
+            while (i < close && (Character.isWhitespace(html.charAt(i)) || html.charAt(i) == '/')) i++;
+            int nameStart = i;
+            while (i < close && !Character.isWhitespace(html.charAt(i)) && html.charAt(i) != '=' && html.charAt(i) != '/') i++;
+            String name = html.substring(nameStart, i);
+            while (i < close && Character.isWhitespace(html.charAt(i))) i++;
+
+            String value = "";
+            if (i < close && html.charAt(i) == '=') {
+                i++;
+                while (i < close && Character.isWhitespace(html.charAt(i))) i++;
+                if (i < close && (html.charAt(i) == '"' || html.charAt(i) == '\'')) {
+                    char quote = html.charAt(i);
+                    int end = html.indexOf(quote, i + 1);
+                    if (end < 0 || end > close) end = close;
+                    value = html.substring(i + 1, end);
+                    i = end + 1;
+                } else {
+                    int start = i;
+                    while (i < close && !Character.isWhitespace(html.charAt(i))) i++;
+                    value = html.substring(start, i);
+                }
+            }
+            if (name.equalsIgnoreCase(ATTRIBUTE)) return value;
+            if (name.isEmpty()) i++;
+        }
+        return null;
+    }
+
+    // Pozycja za tagiem zamykającym element (z uwzględnieniem zagnieżdżeń tego samego tagu)
+    private static int elementEnd(String html, String name, int from) {
+        int depth = 1;
+        int i = from;
+        while (i < html.length()) {
+            int open = html.indexOf('<', i);
+            if (open < 0) break;
+            int close = tagEnd(html, open);
+            if (close < 0) break;
+
+            if (html.startsWith("</", open)) {
+                if (closingTagMatches(html, open + 2, name) && --depth == 0) return close + 1;
+            } else if (name.equals(openingTagName(html, open)) && html.charAt(close - 1) != '/') {
+                depth++;
+            }
+            i = close + 1;
+        }
+        // Niezamknięty element - przeglądarka też rozciągnęłaby go do końca dokumentu
+        return html.length();
+    }
+
+    private static boolean closingTagMatches(String html, int start, String name) {
+        int end = start + name.length();
+        if (!html.regionMatches(true, start, name, 0, name.length())) return false;
+        return end >= html.length() || !Character.isLetterOrDigit(html.charAt(end));
+    }
+}
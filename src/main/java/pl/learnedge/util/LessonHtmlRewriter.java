@@ -0,0 +1,87 @@
+package pl.learnedge.util;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.safety.Cleaner;
+import org.jsoup.safety.Safelist;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Przepisuje HTML lekcji przy zapisie:
+// - czyści dokument listą dozwolonych tagów, atrybutów i protokołów (jsoup Safelist). Parser jsoup działa
+//   jak przeglądarka: dekoduje encje w wartościach (javascript&#58;), traktuje style/textarea/script jako
+//   surowy tekst, więc sprawdzane jest to, co przeglądarka faktycznie zobaczy. Wszystko spoza listy
+//   (srcdoc, xlink:href, <object>, <meta>, style, on*) wypada,
+// - src wskazujące na wgrany plik (po nazwie z ostatniego segmentu) zamienia na adres z magazynu,
+//   a obrazkom dokłada srcset/sizes; nierozwiązane adresy blob: z edytora wypadają razem z protokołem,
+// - normalizuje tagi i atrybuty (małe litery, wartości w cudzysłowach, bez duplikatów).
+public final class LessonHtmlRewriter {
+
+    public record Asset(String url, String srcset, String sizes) {
+        public Asset(String url) {
+            this(url, null, null);
+        }
+    }
+
+    // Adres bazowy tylko do sprawdzania protokołu adresów względnych; w wyniku adresy zostają względne
+    private static final String BASE_URI = "https://learnedge.invalid/";
+
+    // Jedyny handler generowany przez edytor lekcji (przycisk "kopiuj" w bloku kodu)
+    private static final String COPY_BUTTON = "button.course-copy-btn";
+    private static final String COPY_ONCLICK = "copyCode(this)";
+
+    // Tagi i atrybuty, które generuje edytor lekcji (static/js/course.js), plus podstawowe formatowanie
+    private static final Safelist SAFELIST = Safelist.relaxed()
+            .addTags("audio", "video", "source", "iframe", "figure", "figcaption", "hr", "button", "input",
+                    "label", "mark", "s")
+            .addAttributes(":all", "class", "title", "data-learning", "data-answer", "data-correct")
+            .addAttributes("audio", "controls", "src", "preload", "loop")
+            .addAttributes("video", "controls", "src", "poster", "preload", "loop", "muted", "playsinline",
+                    "width", "height")
+            .addAttributes("source", "src", "type")
+            .addAttributes("iframe", "src", "frameborder", "allowfullscreen", "allow", "width", "height")
+            .addAttributes("input", "type", "placeholder")
+            .addAttributes("button", "type")
+            .addAttributes("img", "loading")
+            .addProtocols("audio", "src", "http", "https")
+            .addProtocols("video", "src", "http", "https")
+            .addProtocols("video", "poster", "http", "https")
+            .addProtocols("source", "src", "http", "https")
+            .addProtocols("iframe", "src", "https")
+            .preserveRelativeLinks(true);
+
+    private LessonHtmlRewriter() {
+    }
+
+    public static String rewrite(String html, Map<String, Asset> assets) {
+        return rewrite(html, assets, asset -> {
+        });
+    }
+
+    // onResolved dostaje każdy plik, do którego oczyszczony dokument faktycznie się odwołuje
+    public static String rewrite(String html, Map<String, Asset> assets, Consumer<Asset> onResolved) {
+        if (html == null || html.isEmpty()) return html;
+
+        Document clean = new Cleaner(SAFELIST).clean(Jsoup.parseBodyFragment(html, BASE_URI));
+        clean.outputSettings().prettyPrint(false);
+
+        for (Element element : clean.body().select("[src]")) {
+            Asset asset = assets.get(lastSegment(element.attr("src").trim()));
+            if (asset == null) continue;
+            onResolved.accept(asset);
+            element.attr("src", asset.url());
+            if (asset.srcset() != null && element.normalName().equals("img")) {
+                element.attr("srcset", asset.srcset());
+                if (asset.sizes() != null) element.attr("sizes", asset.sizes());
+            }
+        }
+        clean.body().select(COPY_BUTTON).attr("onclick", COPY_ONCLICK);
+        return clean.body().html();
+    }
+
+    private static String lastSegment(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,100 @@
+package pl.learnedge.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Podział tekstu na tokeny wyszukiwarki (po TextNormalizer) i zamiana HTML lekcji na czysty tekst
+public final class SearchText {
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MAX_TOKEN_LENGTH = 40;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "i", "o", "u", "w", "z", "na", "do", "od", "po", "za", "ze", "we", "to", "sie", "nie",
+            "jest", "oraz", "lub", "czy", "jak", "co", "ten", "ta", "te", "tym", "tak", "ale", "by", "dla",
+            "the", "and", "of", "is"
+    );
+
+    private SearchText() {
+    }
+
+    public static List<String> tokenize(String text) {
+        String normalized = TextNormalizer.normalize(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addToken(tokens, normalized, start, i);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addToken(List<String> tokens, String text, int start, int end) {
+        int length = end - start;
+        if (length < MIN_TOKEN_LENGTH) return;
+        String token = text.substring(start, start + Math.min(length, MAX_TOKEN_LENGTH));
+        if (!STOP_WORDS.contains(token)) tokens.add(token);
+    }
+
+    // Zamienia HTML lekcji na czysty tekst: usuwa tagi, <script>/<style> i podstawowe encje
+    public static String stripTags(String html) {
+        if (html == null) return "";
+        StringBuilder out = new StringBuilder(html.length() / 2);
+        int i = 0;
+        int length = html.length();
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                int close = html.indexOf('>', i);
+                if (close < 0) break;
+                String tag = html.substring(i + 1, Math.min(close, i + 8)).toLowerCase();
+                if (tag.startsWith("script") || tag.startsWith("style")) {
+                    String endTag = "</" + (tag.startsWith("script") ? "script" : "style");
+                    int end = indexOfIgnoreCase(html, endTag, close);
+                    int endClose = end < 0 ? -1 : html.indexOf('>', end);
+                    close = endClose < 0 ? length - 1 : endClose;
+                }
+                out.append(' ');
+                i = close + 1;
+            } else if (c == '&') {
+                int semicolon = html.indexOf(';', i);
+                if (semicolon > i && semicolon - i <= 8) {
+                    out.append(decodeEntity(html.substring(i + 1, semicolon)));
+                    i = semicolon + 1;
+                } else {
+                    out.append(c);
+                    i++;
+                }
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private static String decodeEntity(String entity) {
+        return switch (entity) {
+            case "amp" -> "&";
+            case "lt" -> "<";
+            case "gt" -> ">";
+            case "quot" -> "\"";
+            case "apos", "#39" -> "'";
+            default -> " ";
+        };
+    }
+
+    private static int indexOfIgnoreCase(String text, String needle, int from) {
+        int max = text.length() - needle.length();
+        for (int i = from; i <= max; i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,24 @@
+package pl.learnedge.util;
+
+import java.text.Normalizer;
+
+// Wspólna normalizacja tekstu (wyszukiwarka, analiza ankiety stylu uczenia): bez polskich znaków, małe litery
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String nfd = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(nfd.length());
+        for (int i = 0; i < nfd.length(); i++) {
+            char c = nfd.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            // NFD nie rozkłada "ł"
+            if (c == 'ł' || c == 'Ł') c = 'l';
+            out.append(Character.toLowerCase(c));
+        }
+        return out.toString();
+    }
+}
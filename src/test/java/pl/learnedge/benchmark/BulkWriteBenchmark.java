@@ -0,0 +1,128 @@
+package pl.learnedge.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.learnedge.LearnEdgeApplication;
+import pl.learnedge.model.Course;
+import pl.learnedge.model.Lesson;
+import pl.learnedge.model.LessonProgress;
+import pl.learnedge.model.User;
+import pl.learnedge.model.UserCourse;
+import pl.learnedge.repository.CourseRepository;
+import pl.learnedge.repository.LessonProgressRepository;
+import pl.learnedge.repository.LessonRepository;
+import pl.learnedge.repository.UserCourseRepository;
+import pl.learnedge.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Zapis paczki zapisów na kurs i postępów lekcji przez JPA: bez paczkowania JDBC (batchSize=0,
+// tak jak przy dawnym IDENTITY) i z paczkami po 50. Każda iteracja wycofuje swoją transakcję.
+// Na H2 w pamięci zysk jest mniejszy niż przy MySQL przez sieć, gdzie liczy się każdy round trip.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkWriteBenchmark {
+
+    private static final int ROWS = 500;
+
+    @Param({"0", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private UserCourseRepository userCourseRepository;
+    private LessonProgressRepository lessonProgressRepository;
+    private List<User> users;
+    private Course course;
+    private Lesson lesson;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(LearnEdgeApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:bulk-" + batchSize + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "logging.level.root=warn")
+                .run();
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        userCourseRepository = context.getBean(UserCourseRepository.class);
+        lessonProgressRepository = context.getBean(LessonProgressRepository.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        users = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            users.add(User.builder()
+                    .username("bench" + i)
+                    .password("x")
+                    .role("USER")
+                    .enabled(true)
+                    .email("bench" + i + "@example.com")
+                    .build());
+        }
+        users = userRepository.saveAll(users);
+        course = context.getBean(CourseRepository.class).save(Course.builder()
+                .name("Benchmark")
+                .description("Opis")
+                .slug("benchmark-bulk")
+                .build());
+        lesson = context.getBean(LessonRepository.class).save(Lesson.builder()
+                .title("Lekcja")
+                .content("<p></p>")
+                .lessonOrder(1)
+                .slug("benchmark-bulk-lekcja")
+                .course(course)
+                .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public int bulkEnrollment() {
+        return transactionTemplate.execute(status -> {
+            List<UserCourse> enrollments = new ArrayList<>(ROWS);
+            for (User user : users) {
+                enrollments.add(UserCourse.builder().user(user).course(course).progress(0).build());
+            }
+            userCourseRepository.saveAll(enrollments);
+            userCourseRepository.flush();
+            status.setRollbackOnly();
+            return enrollments.size();
+        });
+    }
+
+    @Benchmark
+    public int bulkProgressWrites() {
+        return transactionTemplate.execute(status -> {
+            List<LessonProgress> progress = new ArrayList<>(ROWS);
+            for (User user : users) {
+                progress.add(LessonProgress.builder().user(user).lesson(lesson).completed(true).build());
+            }
+            lessonProgressRepository.saveAll(progress);
+            lessonProgressRepository.flush();
+            status.setRollbackOnly();
+            return progress.size();
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BulkWriteBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package pl.learnedge.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import pl.learnedge.util.LessonHtmlRewriter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Porównanie przepisywania HTML lekcji przy zapisie: dawna pętla replaceAll per plik
+// kontra LessonHtmlRewriter (parsowanie jsoup, czyszczenie listą dozwolonych tagów i podmiana adresów).
+// Uruchomienie: mvn test-compile, potem klasa main z classpath testów.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LessonHtmlRewriteBenchmark {
+
+    private static final String SIZES = "(max-width: 992px) 100vw, 960px";
+
+    @Param({"10", "100", "400"})
+    private int assetCount;
+
+    // Liczba bloków tekstu między obrazkami - 2000 daje dokument rzędu kilku MB
+    @Param({"2000"})
+    private int textBlocks;
+
+    private String html;
+    private Map<String, LessonHtmlRewriter.Asset> assets;
+
+    @Setup
+    public void setUp() {
+        assets = new HashMap<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < textBlocks; i++) {
+            sb.append("<div class=\"course-text-block\" data-learning=\"0\"><h4 class=\"course-section-title\">Rozdział ")
+                    .append(i).append("</h4><p>Lorem ipsum dolor sit amet, consectetur adipiscing elit, ")
+                    .append("sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. ".repeat(20))
+                    .append("</p></div>\n");
+            if (i % Math.max(1, textBlocks / assetCount) == 0 && assets.size() < assetCount) {
+                int n = assets.size();
+                String name = "0b7c1d" + n + "-obraz" + n + ".png";
+                String url = "/uploads/media/ab/" + Integer.toHexString(n * 7919) + ".png";
+                assets.put(name, new LessonHtmlRewriter.Asset(url, url.replace(".png", "-w480.png") + " 480w, " + url + " 1200w", SIZES));
+                sb.append("<div class=\"course-image-container my-4\" data-learning=\"2\"><img src=\"")
+                        .append(name).append("\" alt=\"obraz").append(n).append("\" class=\"course-image\"></div>\n");
+            }
+        }
+        sb.append("<img src=\"blob:http://localhost:8080/5b0a\" alt=\"podgląd\">");
+        html = sb.toString();
+    }
+
+    @Benchmark
+    public String regexPerAsset() {
+        String contentHtml = html;
+        for (Map.Entry<String, LessonHtmlRewriter.Asset> image : assets.entrySet()) {
+            String url = image.getValue().url();
+            contentHtml = contentHtml.replaceAll(
+                    "(?i)(src=\")([^\"]*" + Pattern.quote(image.getKey()) + ")(\")",
+                    "$1" + url + "$3"
+            );
+            contentHtml = contentHtml.replaceAll(
+                    "(?i)(<img\\b[^>]*?src=\")(" + Pattern.quote(url) + ")(\")",
+                    "$1$2$3" + Matcher.quoteReplacement(" srcset=\"" + image.getValue().srcset() + "\" sizes=\"" + SIZES + "\"")
+            );
+        }
+        return contentHtml.replaceAll("(?i)src=\"blob:[^\"]+\"", "");
+    }
+
+    @Benchmark
+    public String sanitizeAndRewrite() {
+        return LessonHtmlRewriter.rewrite(html, assets);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LessonHtmlRewriteBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,62 @@
+package pl.learnedge.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import pl.learnedge.service.RateLimiter;
+import pl.learnedge.service.RateLimiter.Limit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Koszt limitu żądań w RateLimiter: pobranie żetonu z wielu kubełków, odmowa z pełnego kubełka
+// i wiele wątków na jednym kluczu (pętla CAS bez blokad).
+// Uruchomienie: mvn test-compile, potem klasa main z classpath testów (profiler alokacji: -prof gc).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final int KEYS = 1024;
+
+    private final RateLimiter rateLimiter = new RateLimiter();
+    private final Limit unlimited = new Limit(1_000_000_000, Duration.ofSeconds(1));
+    private final Limit exhausted = new Limit(1, Duration.ofDays(1));
+    private final String[] keys = new String[KEYS];
+    private int next;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "login|ip|10.0." + (i >> 8) + "." + (i & 255);
+        }
+        rateLimiter.tryAcquire("login|account|zablokowany", exhausted);
+    }
+
+    @Benchmark
+    public long allowedAcrossKeys() {
+        next = (next + 1) & (KEYS - 1);
+        return rateLimiter.tryAcquire(keys[next], unlimited);
+    }
+
+    @Benchmark
+    public long deniedWhenExhausted() {
+        return rateLimiter.tryAcquire("login|account|zablokowany", exhausted);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long contendedSingleKey() {
+        return rateLimiter.tryAcquire("login|ip|10.0.0.1", unlimited);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimitBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+package pl.learnedge.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import pl.learnedge.service.SlugService;
+
+import java.util.concurrent.TimeUnit;
+
+// Generowanie slugów: dawny łańcuch 13 wywołań replaceAll kontra jednoprzebiegowa tablica w SlugService.
+// Uruchomienie: mvn test-compile, potem klasa main z classpath testów (profiler alokacji: -prof gc).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlugBenchmark {
+
+    private static final String[] TITLES = {
+            "Wprowadzenie do Javy",
+            "Pętle w Pythonie – while i for",
+            "Programowanie obiektowe: klasy, obiekty i dziedziczenie",
+            "Źródła, ćwiczenia i śledzenie błędów",
+            "Struktury danych — listy, słowniki i zbiory w praktyce (część 2/3)"
+    };
+
+    private final SlugService slugService = new SlugService();
+
+    @Benchmark
+    public void legacyReplaceAll(Blackhole blackhole) {
+        for (String title : TITLES) {
+            blackhole.consume(title.toLowerCase()
+                    .replaceAll("ą", "a").replaceAll("ć", "c").replaceAll("ę", "e")
+                    .replaceAll("ł", "l").replaceAll("ń", "n").replaceAll("ó", "o")
+                    .replaceAll("ś", "s").replaceAll("ź", "z").replaceAll("ż", "z")
+                    .replaceAll("[^a-z0-9\\s-]", "")
+                    .replaceAll("\\s+", "-")
+                    .replaceAll("-{2,}", "-"));
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        for (String title : TITLES) {
+            blackhole.consume(slugService.generateSlug(title));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SlugBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
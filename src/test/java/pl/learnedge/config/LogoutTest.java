@@ -0,0 +1,50 @@
+package pl.learnedge.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import pl.learnedge.dto.UserPrincipal;
+import pl.learnedge.support.TestData;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class)
+@AutoConfigureMockMvc
+@Import(TestData.class)
+@Transactional
+class LogoutTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private TestData testData;
+
+    @Test
+    void logoutExpiresTheSpringSessionCookie() throws Exception {
+        UserPrincipal principal = UserPrincipal.from(testData.user());
+        MockHttpServletResponse login = mockMvc.perform(get("/panel").with(authentication(
+                        UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.authorities()))))
+                .andReturn().getResponse();
+        Cookie session = login.getCookie("SESSION");
+        assertThat(session).isNotNull();
+
+        MockHttpServletResponse logout = mockMvc.perform(post("/perform-logout").cookie(session).with(csrf()))
+                .andExpect(redirectedUrl("/logowanie?logout"))
+                .andReturn().getResponse();
+
+        assertThat(logout.getHeaders(HttpHeaders.SET_COOKIE))
+                .anySatisfy(header -> assertThat(header).startsWith("SESSION=").contains("Max-Age=0"))
+                .noneSatisfy(header -> assertThat(header).startsWith("JSESSIONID="));
+    }
+}
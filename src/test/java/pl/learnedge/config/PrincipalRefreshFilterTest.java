@@ -0,0 +1,129 @@
+package pl.learnedge.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import pl.learnedge.dto.UserPrincipal;
+import pl.learnedge.model.LearningStyle;
+import pl.learnedge.model.User;
+import pl.learnedge.repository.UserRepository;
+import pl.learnedge.service.AuthService;
+import pl.learnedge.service.UserService;
+import pl.learnedge.support.TestData;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class)
+@Import(TestData.class)
+@Transactional
+class PrincipalRefreshFilterTest {
+
+    private static final Duration CHECK_INTERVAL = Duration.ofSeconds(30);
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private UserService userService;
+    @Autowired private AuthService authService;
+    @Autowired private TestData testData;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void principalIsKeptWhileTheAccountIsUnchanged() throws Exception {
+        User user = userRepository.saveAndFlush(testData.user());
+        UserPrincipal principal = authenticate(user);
+
+        MockHttpServletRequest request = filter(new MockHttpSession());
+
+        assertThat(authService.getCurrentPrincipal()).isSameAs(principal);
+        assertThat(request.getSession().getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY))
+                .isNull();
+    }
+
+    @Test
+    void adminChangeRefreshesThePrincipalOfTheUsersSession() throws Exception {
+        User user = userRepository.saveAndFlush(testData.user());
+        authenticate(user);
+        User changes = User.builder().firstName("Anna").role("ROLE_ADMIN").learningStyle("AUDITORY").build();
+        userService.adminUpdateUser(user.getId(), changes);
+        userRepository.flush();
+
+        MockHttpServletRequest request = filter(new MockHttpSession());
+
+        UserPrincipal refreshed = authService.getCurrentPrincipal();
+        assertThat(refreshed.role()).isEqualTo("ROLE_ADMIN");
+        assertThat(refreshed.learningStyle()).isEqualTo(LearningStyle.AUDITORY);
+        assertThat(refreshed.firstName()).isEqualTo("Anna");
+        assertThat(refreshed.version()).isEqualTo(userRepository.findVersionById(user.getId()).orElseThrow());
+        SecurityContext stored = (SecurityContext) request.getSession()
+                .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        assertThat(stored.getAuthentication().getPrincipal()).isEqualTo(refreshed);
+        assertThat(stored.getAuthentication().getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void deletedAccountIsLoggedOut() throws Exception {
+        User user = userRepository.saveAndFlush(testData.user());
+        authenticate(user);
+        userService.deleteUser(user.getId());
+        userRepository.flush();
+        MockHttpSession session = new MockHttpSession();
+
+        filter(session);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(session.isInvalid()).isTrue();
+    }
+
+    @Test
+    void versionIsCheckedAgainOnlyAfterTheInterval() throws Exception {
+        User user = userRepository.saveAndFlush(testData.user());
+        UserPrincipal principal = authenticate(user);
+        MockHttpSession session = new MockHttpSession();
+        filter(session);
+        userService.adminUpdateUser(user.getId(), User.builder().role("ROLE_ADMIN").build());
+        userRepository.flush();
+
+        filter(session);
+        assertThat(authService.getCurrentPrincipal()).isSameAs(principal);
+
+        session.setAttribute(PrincipalRefreshFilter.CHECKED_AT,
+                System.currentTimeMillis() - CHECK_INTERVAL.toMillis());
+        filter(session);
+        assertThat(authService.getCurrentPrincipal().role()).isEqualTo("ROLE_ADMIN");
+    }
+
+    private static UserPrincipal authenticate(User user) {
+        UserPrincipal principal = UserPrincipal.from(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.authorities()));
+        return principal;
+    }
+
+    private MockHttpServletRequest filter(MockHttpSession session) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/panel");
+        request.setSession(session);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        new PrincipalRefreshFilter(userRepository, authService, CHECK_INTERVAL).doFilter(request, response, new MockFilterChain());
+        return request;
+    }
+}
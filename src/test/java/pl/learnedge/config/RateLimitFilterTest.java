@@ -0,0 +1,126 @@
+package pl.learnedge.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import pl.learnedge.service.RateLimiter;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(new RateLimiter(), true,
+            "3/PT1M", "2/PT1M", "1/PT1H", "5/PT1H", "1/PT1H", "5/PT1M", "1/PT1M");
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void requestsOverTheLimitGet429WithRetryAfter() throws Exception {
+        assertThat(post("/rejestracja", "10.0.0.1").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse limited = post("/rejestracja", "10.0.0.1");
+
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(limited.getHeader(HttpHeaders.RETRY_AFTER))).isBetween(3500L, 3601L);
+        assertThat(post("/rejestracja", "10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/%72ejestracja", "/rejestracj%61", "/rejestracja;jsessionid=1", "/%72ejestracj%61"})
+    void encodedPathsShareTheLimitOfThePlainPath(String path) throws Exception {
+        assertThat(post("/rejestracja", "10.0.0.1").getStatus()).isEqualTo(200);
+
+        assertThat(post(path, "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void encodedLoginPathIsLimited() throws Exception {
+        for (String path : List.of("/login", "/%6Cogin", "/logi%6E")) {
+            assertThat(post(path, "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+
+        assertThat(post("/%6C%6F%67%69%6E", "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void otherMethodsAndPathsAreNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest get = new MockHttpServletRequest("GET", "/rejestracja");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(get, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(post("/kurs/java", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void accountKeyIsTheNormalizedFormFieldAcrossAddresses() throws Exception {
+        assertThat(post("/przypomnij-haslo", "10.0.0.1", "email", "Jan@Example.com ").getStatus()).isEqualTo(200);
+
+        assertThat(post("/przypomnij-haslo", "10.0.0.2", "email", "jan@example.com").getStatus()).isEqualTo(429);
+        assertThat(post("/przypomnij-haslo", "10.0.0.2", "email", "anna@example.com").getStatus()).isEqualTo(200);
+        // Bez konta liczy się tylko limit na IP
+        assertThat(post("/przypomnij-haslo", "10.0.0.3", "email", " ").getStatus()).isEqualTo(200);
+        assertThat(post("/przypomnij-haslo", "10.0.0.3").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void loginAccountLimitCountsOnlyFailedAttempts() throws Exception {
+        // Udane logowania (bez loginFailed) nie zużywają limitu konta
+        for (int i = 0; i < 3; i++) {
+            assertThat(post("/login", "10.0.0." + i, "username", "jan").getStatus()).isEqualTo(200);
+        }
+
+        filter.loginFailed(login("10.0.0.5", "Jan"));
+        assertThat(post("/login", "10.0.0.6", "username", "jan").getStatus()).isEqualTo(200);
+        filter.loginFailed(login("10.0.0.5", "jan "));
+
+        MockHttpServletResponse limited = post("/login", "10.0.0.7", "username", "jan");
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(limited.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+        assertThat(post("/login", "10.0.0.7", "username", "anna").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void passwordChangeIsLimitedPerAuthenticatedUser() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("jan", null, List.of()));
+        assertThat(post("/api/profile/change-password", "10.0.0.1").getStatus()).isEqualTo(200);
+
+        assertThat(post("/api/profile/change-password", "10.0.0.2").getStatus()).isEqualTo(429);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("anna", null, List.of()));
+        assertThat(post("/api/profile/change-password", "10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    private static MockHttpServletRequest login(String remoteAddr, String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setRemoteAddr(remoteAddr);
+        request.addParameter("username", username);
+        return request;
+    }
+
+    private MockHttpServletResponse post(String uri, String remoteAddr, String... parameters) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr(remoteAddr);
+        for (int i = 0; i < parameters.length; i += 2) {
+            request.addParameter(parameters[i], parameters[i + 1]);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
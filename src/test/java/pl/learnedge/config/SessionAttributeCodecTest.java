@@ -0,0 +1,68 @@
+package pl.learnedge.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import pl.learnedge.dto.UserPrincipal;
+import pl.learnedge.model.LearningStyle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionAttributeCodecTest {
+
+    private final SessionAttributeCodec codec = new SessionAttributeCodec(getClass().getClassLoader());
+
+    private final UserPrincipal principal = new UserPrincipal(42L, "jan.kowalski@example.com", "ROLE_USER",
+            LearningStyle.VISUAL, "Jan", "Kowalski", "jan.kowalski@example.com",
+            "/uploads/profile-pictures/0b8f6c1e-3c1c-4b59-9d7e-3b1a8b7f1f0e.jpg", 3L);
+
+    @Test
+    void securityContextRoundTripsInCompactForm() throws Exception {
+        UsernamePasswordAuthenticationToken authentication =
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.authorities());
+        authentication.setDetails(new WebAuthenticationDetails("10.0.0.1", "F00D"));
+        SecurityContextImpl context = new SecurityContextImpl(authentication);
+
+        byte[] bytes = codec.serialize(context);
+
+        assertThat(codec.deserialize(bytes)).isEqualTo(context);
+        assertThat(bytes.length).isLessThan(javaSerialized(context).length / 4);
+    }
+
+    @Test
+    void otherAttributesFallBackToJavaSerialization() throws Exception {
+        // Uprawnienia niezgodne z rolą principala - postać zwięzła by je zgubiła
+        SecurityContextImpl context = new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        List<String> flash = new ArrayList<>();
+        for (int i = 0; i < 100; i++) flash.add("komunikat-" + i);
+
+        assertThat(codec.deserialize(codec.serialize(context))).isEqualTo(context);
+        assertThat(codec.deserialize(codec.serialize(flash))).isEqualTo(flash);
+        assertThat(codec.serialize(flash).length).isLessThan(javaSerialized(flash).length);
+        assertThat(codec.deserialize(codec.serialize("tekst"))).isEqualTo("tekst");
+    }
+
+    @Test
+    void readsAttributesWrittenWithPlainJavaSerialization() throws Exception {
+        SecurityContextImpl context = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.authorities()));
+
+        assertThat(codec.deserialize(javaSerialized(context))).isEqualTo(context);
+    }
+
+    private static byte[] javaSerialized(Object value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+}
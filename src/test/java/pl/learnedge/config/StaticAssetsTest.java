@@ -0,0 +1,16 @@
+package pl.learnedge.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StaticAssetsTest {
+
+    private final StaticAssets staticAssets = new StaticAssets();
+
+    @Test
+    void findsSourceScriptsAndReportsMissingFiles() {
+        assertThat(staticAssets.exists("js/lesson.js")).isTrue();
+        assertThat(staticAssets.exists("js/no-such-bundle.js")).isFalse();
+    }
+}
@@ -0,0 +1,125 @@
+package pl.learnedge.controller;
+
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.transaction.annotation.Transactional;
+import pl.learnedge.dto.UserPrincipal;
+import pl.learnedge.model.Course;
+import pl.learnedge.model.Lesson;
+import pl.learnedge.model.User;
+import pl.learnedge.model.UserCourse;
+import pl.learnedge.support.TestData;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class)
+@AutoConfigureMockMvc
+@Import(TestData.class)
+@Transactional
+class ConditionalGetTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private TestData testData;
+    @Autowired private EntityManager entityManager;
+
+    private User user;
+    private Course course;
+    private Lesson lesson;
+    private UserCourse enrollment;
+    private Cookie session;
+
+    @BeforeEach
+    void setUp() {
+        user = testData.user();
+        user.setLearningStyle("VISUAL");
+        course = testData.course();
+        lesson = testData.lesson(course);
+        enrollment = testData.enroll(user, course);
+        entityManager.flush();
+    }
+
+    @Test
+    void coursePageAnswers304ForMatchingETag() throws Exception {
+        String url = "/kurs/" + course.getSlug();
+        String etag = etag(page(url, null).andExpect(status().isOk()));
+
+        page(url, etag)
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        assertThat(etag).isNotBlank();
+    }
+
+    @Test
+    void coursePageChangesETagWhenUserCompletesALesson() throws Exception {
+        String url = "/kurs/" + course.getSlug();
+        String etag = etag(page(url, null));
+
+        enrollment.setCompletedLessons(1);
+        entityManager.flush();
+
+        String changed = etag(page(url, etag).andExpect(status().isOk()));
+        page(url, changed).andExpect(status().isNotModified());
+
+        assertThat(changed).isNotEqualTo(etag);
+    }
+
+    @Test
+    void lessonPageAnswers304UntilTheLessonIsEdited() throws Exception {
+        String url = "/kurs/" + course.getSlug() + "/" + lesson.getSlug();
+        String etag = etag(page(url, null).andExpect(status().isOk()));
+
+        page(url, etag).andExpect(status().isNotModified());
+
+        lesson.setContent("<p>Nowa treść</p>");
+        entityManager.flush();
+
+        page(url, etag).andExpect(status().isOk());
+    }
+
+    @Test
+    void newSessionGetsANewETag() throws Exception {
+        String url = "/kurs/" + course.getSlug();
+        String etag = etag(page(url, null));
+
+        session = null;
+
+        page(url, etag).andExpect(status().isOk());
+    }
+
+    // Jak przeglądarka: ta sama sesja (ciasteczko), opcjonalnie z If-None-Match
+    private ResultActions page(String url, String ifNoneMatch) throws Exception {
+        var request = get(url).with(signedIn());
+        if (session != null) request.cookie(session);
+        if (ifNoneMatch != null) request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        ResultActions result = mockMvc.perform(request);
+        MockHttpServletResponse response = result.andReturn().getResponse();
+        if (response.getCookie("SESSION") != null) session = response.getCookie("SESSION");
+        return result;
+    }
+
+    private static String etag(ResultActions result) {
+        return result.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private RequestPostProcessor signedIn() {
+        UserPrincipal principal = UserPrincipal.from(user);
+        return authentication(UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.authorities()));
+    }
+}
@@ -0,0 +1,135 @@
+package pl.learnedge.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import pl.learnedge.service.MediaService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MediaControllerTest {
+
+    private static final String URL = "/uploads/lessons/clip.mp4";
+
+    @TempDir
+    Path root;
+
+    private MediaService mediaService;
+    private MockMvc mockMvc;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        content = new byte[100];
+        for (int i = 0; i < content.length; i++) content[i] = (byte) i;
+        Files.createDirectories(root.resolve("lessons"));
+        Files.write(root.resolve("lessons/clip.mp4"), content);
+
+        mediaService = new MediaService(root.toString());
+        mockMvc = MockMvcBuilders.standaloneSetup(new MediaController(mediaService)).build();
+    }
+
+    @Test
+    void countsDerivativeRequestsUnderTheServedFile() throws Exception {
+        mockMvc.perform(get("/uploads/lessons/clip-s128.mp4")).andExpect(status().isOk());
+        mockMvc.perform(get("/uploads/lessons/clip-w960.mp4")).andExpect(status().isOk());
+        mockMvc.perform(get(URL)).andExpect(status().isOk());
+
+        assertThat(mediaService.topByBytesServed(10)).singleElement()
+                .satisfies(stats -> {
+                    assertThat(stats.path()).isEqualTo("lessons/clip.mp4");
+                    assertThat(stats.requests()).isEqualTo(3);
+                    assertThat(stats.bytesServed()).isEqualTo(300);
+                });
+    }
+
+    @Test
+    void doesNotServeInFlightUploads() throws Exception {
+        Files.createDirectories(root.resolve("tmp"));
+        Files.write(root.resolve("tmp/upload.part"), content);
+
+        mockMvc.perform(get("/uploads/tmp/upload.part")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void servesSuffixRange() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=-10"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 90-99/100"))
+                .andReturn().getResponse();
+
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 90, 100));
+    }
+
+    @Test
+    void servesOpenEndedRange() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=95-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 95-99/100"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 5))
+                .andReturn().getResponse();
+
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 95, 100));
+    }
+
+    @Test
+    void answers416ForUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=100-200"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100"));
+    }
+
+    @Test
+    void skipsUnsatisfiableRangeWhenAnotherOneFits() throws Exception {
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=500-600,0-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-3/100"));
+    }
+
+    @Test
+    void servesWholeFileWhenIfRangeDoesNotMatch() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(URL)
+                        .header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void servesRangeWhenIfRangeMatchesCurrentETag() throws Exception {
+        String etag = mockMvc.perform(get(URL)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(URL)
+                        .header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-9/100"));
+    }
+
+    @Test
+    void servesMultipleRangesAsMultipart() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-1,-2"))
+                .andExpect(status().isPartialContent())
+                .andReturn().getResponse();
+
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String body = new String(response.getContentAsByteArray(), StandardCharsets.ISO_8859_1);
+        assertThat(body).contains("Content-Range: bytes 0-1/100", "Content-Range: bytes 98-99/100");
+        assertThat(response.getContentLengthLong()).isEqualTo(response.getContentAsByteArray().length);
+    }
+}
@@ -0,0 +1,110 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import pl.learnedge.dto.CurrentUser;
+import pl.learnedge.dto.UserPrincipal;
+import pl.learnedge.model.LearningStyle;
+import pl.learnedge.model.User;
+import pl.learnedge.repository.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class)
+@Transactional
+class AuthServiceTest {
+
+    @Autowired private AuthService authService;
+    @Autowired private UserRepository userRepository;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void currentUserComesFromThePrincipalWithoutTouchingTheSession() {
+        User user = userRepository.saveAndFlush(User.builder()
+                .username("kontekst-uzytkownika")
+                .password("secret")
+                .role("ROLE_USER")
+                .enabled(true)
+                .learningStyle("KINESTHETIC")
+                .build());
+        UserPrincipal principal = UserPrincipal.from(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.authorities()));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpSession session = new MockHttpSession();
+        request.setSession(session);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        CurrentUser current = authService.getCurrentUserContext();
+
+        assertThat(current).isEqualTo(new CurrentUser(user.getId(), "kontekst-uzytkownika", "ROLE_USER", LearningStyle.KINESTHETIC));
+        assertThat(current.learningStyle().code()).isEqualTo(3);
+        assertThat(authService.getCurrentUserId()).isEqualTo(user.getId());
+        assertThat(session.getAttributeNames().hasMoreElements()).isFalse();
+    }
+
+    @Test
+    void refreshedPrincipalIsStoredInTheSessionWithoutThePasswordHash() throws Exception {
+        User user = userRepository.saveAndFlush(User.builder()
+                .username("principal-sesji")
+                .password("$2a$10$hashktoryniepowinientrafic.do.sesji")
+                .role("ROLE_ADMIN")
+                .enabled(true)
+                .firstName("Jan")
+                .learningStyle("AUDITORY")
+                .build());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(new MockHttpSession());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+
+        authService.refreshPrincipal(user);
+
+        SecurityContext stored = (SecurityContext) request.getSession()
+                .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        assertThat(stored.getAuthentication().getName()).isEqualTo("principal-sesji");
+        assertThat(stored.getAuthentication().getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        assertThat(authService.getCurrentPrincipal())
+                .isEqualTo(new UserPrincipal(user.getId(), "principal-sesji", "ROLE_ADMIN", LearningStyle.AUDITORY,
+                        "Jan", null, null, null, user.getVersion()));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(stored);
+        }
+        assertThat(bytes.toString(StandardCharsets.ISO_8859_1)).doesNotContain("hashktoryniepowinientrafic");
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            SecurityContext restored = (SecurityContext) in.readObject();
+            assertThat(restored.getAuthentication().getPrincipal()).isEqualTo(authService.getCurrentPrincipal());
+        }
+    }
+
+    @Test
+    void unknownStylesMapToNone() {
+        assertThat(LearningStyle.of(null)).isEqualTo(LearningStyle.NONE);
+        assertThat(LearningStyle.of("MIXED").code()).isZero();
+        assertThat(LearningStyle.of(" auditory ")).isEqualTo(LearningStyle.AUDITORY);
+    }
+}
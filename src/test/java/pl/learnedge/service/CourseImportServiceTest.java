@@ -0,0 +1,112 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import pl.learnedge.dto.CourseImportStatus;
+import pl.learnedge.model.Course;
+import pl.learnedge.model.Lesson;
+import pl.learnedge.repository.CourseRepository;
+import pl.learnedge.repository.LessonMediaRepository;
+import pl.learnedge.repository.LessonRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class,
+        properties = {
+                "app.media.root=target/test-uploads",
+                "app.import.max-size=1MB"
+        })
+@Transactional
+class CourseImportServiceTest {
+
+    private static final String MANIFEST = """
+            {"name": "Kurs importowany", "description": "Opis z paczki", "difficulty": "łatwy",
+             "lessons": [
+               {"title": "Wstęp do importu", "file": "lekcje/01.html"},
+               {"title": "Nagranie z importu", "file": "lekcje/02.html"}
+             ]}""";
+
+    @Autowired private CourseImportService courseImportService;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private LessonRepository lessonRepository;
+    @Autowired private LessonMediaRepository lessonMediaRepository;
+
+    @Test
+    void importsCourseLessonsAndMediaFromZip() throws IOException {
+        byte[] zip = zip(
+                "manifest.json", MANIFEST,
+                "lekcje/01.html", "<p>Tekst</p><img src=\"media/schemat.png\" alt=\"schemat\">",
+                "media/schemat.png", "nie-do-końca-png",
+                "media/nagranie.mp3", "dźwięk",
+                "lekcje/02.html", "<audio controls><source src=\"media/nagranie.mp3\" type=\"audio/mpeg\" /></audio>");
+
+        CourseImportStatus status = courseImportService.importCourse(new ByteArrayInputStream(zip));
+
+        assertThat(status.phase()).isEqualTo("DONE");
+        assertThat(status.mediaStored()).isEqualTo(2);
+        assertThat(status.lessonsSaved()).isEqualTo(2);
+
+        Course course = courseRepository.findBySlug(status.courseSlug()).orElseThrow();
+        assertThat(course.getLessonCount()).isEqualTo(2);
+
+        List<Lesson> lessons = lessonRepository.findAllByCourseId(course.getId()).stream()
+                .sorted(Comparator.comparing(Lesson::getLessonOrder))
+                .toList();
+        assertThat(lessons).extracting(Lesson::getSlug).containsExactly("wstep-do-importu", "nagranie-z-importu");
+        assertThat(lessons.get(0).getContent()).contains("src=\"/uploads/media/").doesNotContain("media/schemat.png");
+        assertThat(lessons.get(1).getContent()).contains(".mp3\" type=\"audio/mpeg\"");
+        assertThat(lessonMediaRepository.count()).isEqualTo(2);
+        assertThat(courseImportService.getImport(status.id())).contains(status);
+    }
+
+    @Test
+    void rejectsPackageWithoutManifestFirst() throws IOException {
+        byte[] zip = zip("lekcje/01.html", "<p>Tekst</p>", "manifest.json", MANIFEST);
+
+        CourseImportStatus status = courseImportService.importCourse(new ByteArrayInputStream(zip));
+
+        assertThat(status.phase()).isEqualTo("FAILED");
+        assertThat(status.error()).contains("manifest.json");
+        assertThat(courseRepository.findBySlug("kurs-importowany")).isEmpty();
+    }
+
+    @Test
+    void countsSkippedEntriesTowardsTheSizeLimit() throws IOException {
+        // 4 MB zer w pominiętym wpisie kompresuje się do kilku KB
+        byte[] zip = zip(
+                "manifest.json", MANIFEST,
+                "notatki/zera.txt", "0".repeat(4 * 1024 * 1024),
+                "lekcje/01.html", "<p>Tekst</p>",
+                "lekcje/02.html", "<p>Tekst</p>");
+        assertThat(zip.length).isLessThan(64 * 1024);
+
+        CourseImportStatus status = courseImportService.importCourse(new ByteArrayInputStream(zip));
+
+        assertThat(status.phase()).isEqualTo("FAILED");
+        assertThat(status.error()).contains("limit");
+        assertThat(courseRepository.findBySlug("kurs-importowany")).isEmpty();
+    }
+
+    private static byte[] zip(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
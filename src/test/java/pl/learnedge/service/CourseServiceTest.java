@@ -0,0 +1,281 @@
+package pl.learnedge.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import pl.learnedge.dto.CacheStats;
+import pl.learnedge.dto.CourseDto;
+import pl.learnedge.dto.CoursePage;
+import pl.learnedge.dto.CourseVersion;
+import pl.learnedge.dto.LessonProgressUpdate;
+import pl.learnedge.event.CourseChangedEvent;
+import pl.learnedge.mapper.CourseMapper;
+import pl.learnedge.model.*;
+import pl.learnedge.repository.*;
+import pl.learnedge.support.TestData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(TestData.class)
+@Transactional
+class CourseServiceTest {
+
+    @Autowired private CourseService courseService;
+    @Autowired private CourseCatalogCache courseCatalogCache;
+    @Autowired private LessonService lessonService;
+    @Autowired private ProgressReconciliationService progressReconciliationService;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private LessonRepository lessonRepository;
+    @Autowired private UserCourseRepository userCourseRepository;
+    @Autowired private LessonProgressRepository lessonProgressRepository;
+    @Autowired private CourseMapper courseMapper;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TestData testData;
+
+    @Test
+    void enrolledCoursesQueryCountDoesNotGrowWithEnrollments() {
+        User user = testData.user();
+
+        enroll(user, 1);
+        long queriesForOne = countQueries(user.getId());
+
+        enroll(user, 29);
+        long queriesForThirty = countQueries(user.getId());
+
+        assertThat(queriesForOne).isEqualTo(1);
+        assertThat(queriesForThirty).isEqualTo(queriesForOne);
+    }
+
+    @Test
+    void enrolledCoursesReportCompletedLessons() {
+        User user = testData.user();
+        Course course = enroll(user, 1).get(0);
+        Lesson completed = lessonRepository.findAllByCourseId(course.getId()).get(0);
+        complete(completed.getId(), user.getId());
+        complete(completed.getId(), user.getId());
+        entityManager.clear();
+
+        List<CourseDto> courses = courseService.getEnrolledCoursesForUser(user.getId());
+
+        assertThat(courses).hasSize(1);
+        assertThat(courses.get(0).getProgress()).isEqualTo(50.0);
+        assertThat(userCourseRepository.findAllByUserId(user.getId()).get(0).getProgress()).isEqualTo(50);
+    }
+
+    @Test
+    void reconciliationFixesDriftedCounters() {
+        User user = testData.user();
+        Course course = enroll(user, 1).get(0);
+        Lesson completed = lessonRepository.findAllByCourseId(course.getId()).get(0);
+        lessonProgressRepository.save(LessonProgress.builder()
+                .user(user)
+                .lesson(completed)
+                .completed(true)
+                .build());
+        entityManager.flush();
+
+        progressReconciliationService.reconcile();
+        entityManager.clear();
+
+        UserCourse enrollment = userCourseRepository.findAllByUserId(user.getId()).get(0);
+        assertThat(enrollment.getCompletedLessons()).isEqualTo(1);
+        assertThat(enrollment.getProgress()).isEqualTo(50);
+    }
+
+    @Test
+    void progressIsRoundedDownLikeTheOtherWriters() {
+        User user = testData.user();
+        Course course = enroll(user, 1).get(0);
+        testData.lesson(course);
+        for (Lesson lesson : lessonRepository.findAllByCourseId(course.getId()).subList(0, 2)) {
+            lessonProgressRepository.save(LessonProgress.builder()
+                    .user(user)
+                    .lesson(lesson)
+                    .completed(true)
+                    .build());
+        }
+        entityManager.flush();
+
+        progressReconciliationService.reconcile();
+        entityManager.clear();
+
+        assertThat(userCourseRepository.findAllByUserId(user.getId()).get(0).getProgress()).isEqualTo(66);
+        userCourseRepository.recalculateProgressForCourse(course.getId());
+        entityManager.clear();
+        assertThat(userCourseRepository.findAllByUserId(user.getId()).get(0).getProgress()).isEqualTo(66);
+    }
+
+    @Test
+    void availableCoursesPagesCoverCatalogWithoutEnrolledCourses() {
+        User user = testData.user();
+        Course enrolled = enroll(user, 1).get(0);
+        User other = testData.user();
+        enroll(other, 7);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CoursePage page = courseService.getAvailableCoursesPage(user.getId(), null, cursor, 3);
+            page.courses().forEach(course -> seen.add(course.getId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        List<Long> expected = courseRepository.findAll().stream()
+                .map(Course::getId)
+                .filter(id -> !id.equals(enrolled.getId()))
+                .toList();
+        assertThat(seen).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void availableCoursesPagesIncludeCoursesWithoutDifficultyAcrossPageBoundaries() {
+        User user = testData.user();
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(createCourse(null).getId());
+        }
+        created.add(createCourse("łatwy").getId());
+        created.add(createCourse("trudny").getId());
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CoursePage page = courseService.getAvailableCoursesPage(user.getId(), null, cursor, 2);
+            page.courses().forEach(course -> seen.add(course.getId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).doesNotHaveDuplicates().containsAll(created);
+        assertThat(seen).hasSameSizeAs(courseRepository.findAll());
+        assertThat(courseService.getCourseDifficulties()).doesNotContainNull();
+    }
+
+    @Test
+    void coursePageListsLessonSummariesPageByPage() {
+        User user = testData.user();
+        Course course = enroll(user, 1).get(0);
+        Lesson first = lessonRepository.findAllByCourseId(course.getId()).get(0);
+        Lesson second = lessonRepository.findAllByCourseId(course.getId()).get(1);
+        complete(second.getId(), user.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        CourseDto firstPage = courseService.getCourseBySlug(course.getSlug(), user.getId(), 0, 1);
+        CourseDto secondPage = courseService.getCourseBySlug(course.getSlug(), user.getId(), 1, 1);
+
+        assertThat(firstPage.getLessonCount()).isEqualTo(2);
+        assertThat(firstPage.getLessons()).singleElement()
+                .satisfies(lesson -> {
+                    assertThat(lesson.getId()).isEqualTo(first.getId());
+                    assertThat(lesson.getPosition()).isEqualTo(1);
+                    assertThat(lesson.isCompleted()).isFalse();
+                });
+        assertThat(secondPage.getLessons()).singleElement()
+                .satisfies(lesson -> {
+                    assertThat(lesson.getId()).isEqualTo(second.getId());
+                    assertThat(lesson.getPosition()).isEqualTo(2);
+                    assertThat(lesson.isCompleted()).isTrue();
+                });
+    }
+
+    @Test
+    void courseVersionChangesWithUserCompletion() {
+        User user = testData.user();
+        Course course = enroll(user, 1).get(0);
+        CourseVersion before = courseService.getCourseVersion(course.getSlug(), user.getId());
+
+        Lesson lesson = lessonRepository.findAllByCourseId(course.getId()).get(0);
+        complete(lesson.getId(), user.getId());
+        entityManager.flush();
+        CourseVersion after = courseService.getCourseVersion(course.getSlug(), user.getId());
+
+        assertThat(before.completedLessons()).isZero();
+        assertThat(after.completedLessons()).isEqualTo(1);
+        assertThat(after.contentVersion()).isEqualTo(before.contentVersion());
+    }
+
+    @Test
+    void catalogCacheReloadsOnlyChangedCourses() {
+        Course course = enroll(testData.user(), 1).get(0);
+        entityManager.flush();
+        courseCatalogCache.onCourseChanged(new CourseChangedEvent(course.getId()));
+        courseService.getAllCourse();
+        CacheStats before = courseCatalogCache.stats();
+
+        List<CourseDto> cached = courseService.getAllCourse();
+        course.setName("Kurs po zmianie");
+        entityManager.flush();
+        courseCatalogCache.onCourseChanged(new CourseChangedEvent(course.getId()));
+        List<CourseDto> reloaded = courseService.getAllCourse();
+        CacheStats after = courseCatalogCache.stats();
+
+        assertThat(cached).extracting(CourseDto::getId).contains(course.getId());
+        assertThat(reloaded).filteredOn(dto -> dto.getId().equals(course.getId()))
+                .singleElement().extracting(CourseDto::getName).isEqualTo("Kurs po zmianie");
+        assertThat(after.hits() - before.hits()).isEqualTo(1);
+        assertThat(after.misses() - before.misses()).isEqualTo(1);
+    }
+
+    @Test
+    void oversizedCatalogIsReadWithoutCachingAndEvictedOnce() {
+        Course course = enroll(testData.user(), 1).get(0);
+        entityManager.flush();
+        CourseCatalogCache tinyCache = new CourseCatalogCache(courseRepository, courseMapper, DataSize.ofBytes(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(tinyCache.getCatalog()).extracting(CourseDto::getId).contains(course.getId());
+        }
+        CacheStats stats = tinyCache.stats();
+
+        assertThat(stats.evictions()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(3);
+        assertThat(stats.hits()).isZero();
+        assertThat(stats.entries()).isZero();
+    }
+
+    // Ukończenie zapisywane od razu (stan ustawiany wprost, bez kolejki w tle)
+    private void complete(Long lessonId, Long userId) {
+        lessonService.updateProgress(userId, List.of(new LessonProgressUpdate(lessonId, true)));
+    }
+
+    private long countQueries(Long userId) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        courseService.getEnrolledCoursesForUser(userId);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Course createCourse(String difficulty) {
+        Course course = testData.course();
+        course.setDifficulty(difficulty);
+        return courseRepository.save(course);
+    }
+
+    // Kursy z dwiema lekcjami, na które zapisany jest użytkownik
+    private List<Course> enroll(User user, int count) {
+        List<Course> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Course course = testData.course();
+            testData.lesson(course);
+            testData.lesson(course);
+            testData.enroll(user, course);
+            courses.add(course);
+        }
+        return courses;
+    }
+}
@@ -0,0 +1,70 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDerivativeServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void decodesImageWithinPixelLimit() throws Exception {
+        Path file = dir.resolve("small.png");
+        Files.write(file, png(40, 30));
+
+        BufferedImage image = ImageDerivativeService.decode(file, 40 * 30);
+
+        assertThat(image).isNotNull();
+        assertThat(image.getWidth()).isEqualTo(40);
+        assertThat(image.getHeight()).isEqualTo(30);
+    }
+
+    @Test
+    void rejectsImageAbovePixelLimit() throws Exception {
+        Path file = dir.resolve("large.png");
+        Files.write(file, png(40, 30));
+
+        assertThat(ImageDerivativeService.decode(file, 40 * 30 - 1)).isNull();
+    }
+
+    @Test
+    void rejectsSmallFileDeclaringHugeDimensionsWithoutDecodingIt() throws Exception {
+        // 1x1 px PNG z nagłówkiem IHDR przerobionym na 100000x100000 px
+        byte[] bomb = png(1, 1);
+        ByteBuffer header = ByteBuffer.wrap(bomb);
+        header.putInt(16, 100_000).putInt(20, 100_000);
+        CRC32 crc = new CRC32();
+        crc.update(bomb, 12, 17);
+        header.putInt(29, (int) crc.getValue());
+        Path file = dir.resolve("bomb.png");
+        Files.write(file, bomb);
+
+        assertThat(Files.size(file)).isLessThan(1024);
+        assertThat(ImageDerivativeService.decode(file, 40_000_000)).isNull();
+    }
+
+    @Test
+    void returnsNullForUnknownFormat() throws Exception {
+        Path file = dir.resolve("notes.png");
+        Files.writeString(file, "to nie jest obraz");
+
+        assertThat(ImageDerivativeService.decode(file, 40_000_000)).isNull();
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
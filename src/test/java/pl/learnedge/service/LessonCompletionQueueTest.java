@@ -0,0 +1,119 @@
+package pl.learnedge.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+import pl.learnedge.dto.LessonProgressUpdate;
+import pl.learnedge.model.*;
+import pl.learnedge.repository.*;
+import pl.learnedge.support.TestData;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Wątek zapisujący w tle nie widzi danych z niezatwierdzonej transakcji testu, więc kolejka opróżniana jest ręcznie
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class,
+        properties = "app.progress.completion.flush-interval=PT1H")
+@Import(TestData.class)
+@Transactional
+class LessonCompletionQueueTest {
+
+    @Autowired private LessonCompletionQueue lessonCompletionQueue;
+    @Autowired private LessonProgressWriter lessonProgressWriter;
+    @Autowired private LessonService lessonService;
+    @Autowired private UserCourseRepository userCourseRepository;
+    @Autowired private LessonProgressRepository lessonProgressRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private TestData testData;
+
+    @Test
+    void repeatedCompletionsAreCoalescedAndCountedOnce() {
+        User user = testData.user();
+        Course course = testData.course();
+        Lesson first = testData.lesson(course);
+        Lesson second = testData.lesson(course);
+        testData.enroll(user, course);
+
+        assertThat(lessonCompletionQueue.submit(user.getId(), first.getId())).isTrue();
+        assertThat(lessonCompletionQueue.submit(user.getId(), first.getId())).isTrue();
+        assertThat(lessonCompletionQueue.submit(user.getId(), second.getId())).isTrue();
+        assertThat(lessonCompletionQueue.pendingCount()).isEqualTo(2);
+
+        lessonCompletionQueue.flush();
+        // Ponowne ukończenie po zapisie nie zmienia liczników
+        lessonCompletionQueue.submit(user.getId(), first.getId());
+        lessonCompletionQueue.flush();
+        entityManager.clear();
+
+        assertThat(lessonCompletionQueue.pendingCount()).isZero();
+        assertThat(lessonProgressRepository.findCompletedLessonIdsByCourseIdAndUserId(course.getId(), user.getId()))
+                .containsExactlyInAnyOrder(first.getId(), second.getId());
+        UserCourse enrollment = userCourseRepository.findAllByUserId(user.getId()).get(0);
+        assertThat(enrollment.getCompletedLessons()).isEqualTo(2);
+        assertThat(enrollment.getProgress()).isEqualTo(100);
+    }
+
+    @Test
+    void queuedCompletionDoesNotOverwriteLaterExplicitUpdate() {
+        User user = testData.user();
+        Course course = testData.course();
+        Lesson lesson = testData.lesson(course);
+        testData.enroll(user, course);
+
+        lessonCompletionQueue.submit(user.getId(), lesson.getId());
+        lessonService.updateProgress(user.getId(), List.of(new LessonProgressUpdate(lesson.getId(), false)));
+        lessonCompletionQueue.flush();
+        entityManager.clear();
+
+        assertThat(lessonProgressRepository.findCompletedLessonIdsByCourseIdAndUserId(course.getId(), user.getId())).isEmpty();
+        assertThat(userCourseRepository.findAllByUserId(user.getId()).get(0).getCompletedLessons()).isZero();
+    }
+
+    @Test
+    void walIsReplayedAfterRestart(@TempDir Path dir) {
+        Path walFile = dir.resolve("completions.wal");
+        LessonCompletionQueue crashed = walQueue(walFile);
+        crashed.submit(1L, 10L);
+        crashed.submit(1L, 11L);
+        crashed.submit(1L, 10L);
+
+        assertThat(walQueue(walFile).pendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    void failedWalRotationKeepsQueueAndAcceptsNewCompletions(@TempDir Path dir) throws Exception {
+        Path walFile = dir.resolve("completions.wal");
+        LessonCompletionQueue queue = walQueue(walFile);
+        queue.submit(1L, 10L);
+
+        // Niepusty katalog w miejscu pliku paczki - przeniesienie dziennika się nie uda
+        Path blocker = Files.createDirectories(dir.resolve("completions.wal.flushing"));
+        Files.writeString(blocker.resolve("x"), "x");
+        assertThatThrownBy(queue::flush).isInstanceOf(UncheckedIOException.class);
+
+        assertThat(queue.pendingCount()).isEqualTo(1);
+        assertThat(queue.submit(1L, 11L)).isTrue();
+        assertThat(Files.readAllLines(walFile)).containsExactly("1 10", "1 11");
+
+        Files.delete(blocker.resolve("x"));
+        Files.delete(blocker);
+        queue.flush();
+
+        assertThat(queue.pendingCount()).isZero();
+        assertThat(walQueue(walFile).pendingCount()).isZero();
+    }
+
+    private LessonCompletionQueue walQueue(Path walFile) {
+        return new LessonCompletionQueue(lessonProgressWriter, "wal", 100, 10, Duration.ofHours(1), walFile);
+    }
+}
@@ -0,0 +1,83 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+import pl.learnedge.model.Course;
+import pl.learnedge.model.Lesson;
+import pl.learnedge.repository.CourseRepository;
+import pl.learnedge.repository.LessonRepository;
+import pl.learnedge.support.TestData;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class)
+@Import(TestData.class)
+@Transactional
+class LessonOrderingServiceTest {
+
+    @Autowired private LessonOrderingService lessonOrderingService;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private LessonRepository lessonRepository;
+    @Autowired private TestData testData;
+
+    @Test
+    void appendedLessonsGetSparseRanks() {
+        Course course = testData.course();
+        Lesson a = testData.lesson(course);
+        Lesson b = testData.lesson(course);
+
+        assertThat(a.getLessonOrder()).isEqualTo(LessonOrderingService.RANK_GAP);
+        assertThat(b.getLessonOrder()).isEqualTo(2 * LessonOrderingService.RANK_GAP);
+        assertThat(courseRepository.findLastLessonRank(course.getId())).isEqualTo(2 * LessonOrderingService.RANK_GAP);
+    }
+
+    @Test
+    void movingLessonChangesOnlyItsOwnRank() {
+        Course course = testData.course();
+        Lesson a = testData.lesson(course);
+        Lesson b = testData.lesson(course);
+        Lesson c = testData.lesson(course);
+
+        lessonOrderingService.moveAfter(c.getId(), null);
+        lessonOrderingService.moveAfter(a.getId(), b.getId());
+
+        assertThat(lessonRepository.findOrderedIdsByCourseId(course.getId()))
+                .containsExactly(c.getId(), b.getId(), a.getId());
+        assertThat(lessonRepository.findRank(b.getId(), course.getId())).contains(2 * LessonOrderingService.RANK_GAP);
+    }
+
+    @Test
+    void repeatedMovesIntoTheSameGapRebalanceTheCourse() {
+        Course course = testData.course();
+        Lesson a = testData.lesson(course);
+        Lesson b = testData.lesson(course);
+
+        // Każde przeniesienie na początek połowi odstęp przed pierwszą lekcją
+        for (int i = 0; i < 12; i++) {
+            lessonOrderingService.moveAfter((i % 2 == 0 ? b : a).getId(), null);
+        }
+
+        assertThat(lessonRepository.findOrderedIdsByCourseId(course.getId())).containsExactly(a.getId(), b.getId());
+    }
+
+    @Test
+    void reorderAppliesWholeOrderingAndRejectsIncompleteLists() {
+        Course course = testData.course();
+        Lesson a = testData.lesson(course);
+        Lesson b = testData.lesson(course);
+        Lesson c = testData.lesson(course);
+
+        lessonOrderingService.reorder(course.getId(), List.of(c.getId(), a.getId(), b.getId()));
+
+        assertThat(lessonRepository.findOrderedIdsByCourseId(course.getId()))
+                .containsExactly(c.getId(), a.getId(), b.getId());
+        assertThatThrownBy(() -> lessonOrderingService.reorder(course.getId(), List.of(a.getId(), b.getId())))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
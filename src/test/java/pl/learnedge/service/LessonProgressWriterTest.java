@@ -0,0 +1,81 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+import pl.learnedge.dto.CourseProgress;
+import pl.learnedge.dto.LessonProgressUpdate;
+import pl.learnedge.dto.ProgressUpdateResult;
+import pl.learnedge.dto.LessonCompletion;
+import pl.learnedge.model.*;
+import pl.learnedge.repository.LessonProgressRepository;
+import pl.learnedge.support.TestData;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class)
+@Import(TestData.class)
+@Transactional
+class LessonProgressWriterTest {
+
+    @Autowired private LessonProgressWriter lessonProgressWriter;
+    @Autowired private LessonProgressRepository lessonProgressRepository;
+    @Autowired private TestData testData;
+
+    @Test
+    void bulkUpdateAppliesStatesIdempotentlyAndReportsCourseProgress() {
+        User user = testData.user();
+        Course course = testData.course("kurs-postepu");
+        testData.enroll(user, course);
+        List<Lesson> lessons = List.of(testData.lesson(course), testData.lesson(course), testData.lesson(course));
+        testData.lesson(course);
+
+        List<LessonProgressUpdate> backlog = List.of(
+                new LessonProgressUpdate(lessons.get(0).getId(), true),
+                new LessonProgressUpdate(lessons.get(1).getId(), null),
+                new LessonProgressUpdate(lessons.get(2).getId(), true),
+                new LessonProgressUpdate(lessons.get(2).getId(), false),
+                new LessonProgressUpdate(-1L, true));
+
+        ProgressUpdateResult first = lessonProgressWriter.apply(user.getId(), backlog);
+        ProgressUpdateResult replay = lessonProgressWriter.apply(user.getId(), backlog);
+
+        assertThat(first.changed()).isEqualTo(2);
+        assertThat(first.courses()).containsExactly(new CourseProgress(course.getId(), "kurs-postepu", 2, 4, 50));
+        assertThat(replay.changed()).isZero();
+        assertThat(replay.courses()).isEqualTo(first.courses());
+
+        ProgressUpdateResult undo = lessonProgressWriter.apply(user.getId(),
+                List.of(new LessonProgressUpdate(lessons.get(0).getId(), false)));
+
+        assertThat(undo.changed()).isEqualTo(1);
+        assertThat(undo.courses()).containsExactly(new CourseProgress(course.getId(), "kurs-postepu", 1, 4, 25));
+    }
+
+    @Test
+    void insertedRowsDoNotReuseIdsHandedOutToJpa() {
+        User user = testData.user();
+        Course course = testData.course("kurs-id");
+        testData.enroll(user, course);
+        Lesson viaJpa = testData.lesson(course);
+        Lesson viaWriter = testData.lesson(course);
+        Lesson viaJpaAgain = testData.lesson(course);
+
+        LessonProgress first = lessonProgressRepository.saveAndFlush(LessonProgress.builder()
+                .user(user).lesson(viaJpa).completed(true).build());
+        assertThat(lessonProgressWriter.complete(List.of(new LessonCompletion(user.getId(), viaWriter.getId()))))
+                .isEqualTo(1);
+        LessonProgress second = lessonProgressRepository.saveAndFlush(LessonProgress.builder()
+                .user(user).lesson(viaJpaAgain).completed(true).build());
+
+        assertThat(lessonProgressRepository.findAll())
+                .extracting(LessonProgress::getId)
+                .doesNotHaveDuplicates()
+                .contains(first.getId(), second.getId())
+                .hasSize(3);
+    }
+}
@@ -0,0 +1,58 @@
+package pl.learnedge.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+import pl.learnedge.model.Course;
+import pl.learnedge.model.Lesson;
+import pl.learnedge.repository.LessonMediaRepository;
+import pl.learnedge.repository.LessonRepository;
+import pl.learnedge.support.TestData;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class,
+        properties = "app.media.root=target/test-uploads")
+@Import(TestData.class)
+@Transactional
+class LessonServiceTest {
+
+    @Autowired private LessonService lessonService;
+    @Autowired private LessonRepository lessonRepository;
+    @Autowired private LessonMediaRepository lessonMediaRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private TestData testData;
+
+    @Test
+    void savedLessonGoesLastWithUploadedMediaAttached() {
+        Course course = testData.course();
+        Lesson existing = testData.lesson(course);
+        MockMultipartFile audio = new MockMultipartFile("audioFiles", "nagranie.mp3", "audio/mpeg",
+                "nagranie lekcji".getBytes(StandardCharsets.UTF_8));
+
+        lessonService.saveLesson(course.getId(), "Nowa lekcja z nagraniem",
+                "<audio controls><source src=\"blob:http://localhost/1\" type=\"audio/mpeg\"></audio>"
+                        + "<audio controls><source src=\"nagranie.mp3\" type=\"audio/mpeg\"></audio>",
+                List.of(), List.of(), List.of(audio), List.of("nagranie.mp3"));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Lesson> lessons = lessonRepository.findAllByCourseId(course.getId()).stream()
+                .sorted(Comparator.comparing(Lesson::getLessonOrder))
+                .toList();
+        Lesson saved = lessons.get(1);
+        assertThat(lessons.get(0).getId()).isEqualTo(existing.getId());
+        assertThat(saved.getTitle()).isEqualTo("Nowa lekcja z nagraniem");
+        assertThat(saved.getLessonOrder()).isGreaterThan(existing.getLessonOrder());
+        assertThat(saved.getContent()).contains("src=\"/uploads/media/").doesNotContain("blob:");
+        assertThat(lessonMediaRepository.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,43 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import pl.learnedge.event.LessonChangedEvent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LessonVariantCacheTest {
+
+    private static final String CONTENT = "<p>Wstęp</p><div data-learning=\"1\">Słuchowiec</div><div data-learning=\"2\">Wzrokowiec</div>";
+
+    private final LessonVariantCache cache = new LessonVariantCache(DataSize.ofMegabytes(1));
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<String> content = () -> {
+        loads.incrementAndGet();
+        return CONTENT;
+    };
+
+    @Test
+    void loadsLessonContentOnlyOnMiss() {
+        String first = cache.render(1L, 1, 2, content);
+        String second = cache.render(1L, 1, 2, content);
+
+        assertThat(first).isEqualTo(second).contains("Wzrokowiec").doesNotContain("Słuchowiec");
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void changedLessonIsLoadedAgain() {
+        cache.render(1L, 1, 2, content);
+
+        cache.onLessonChanged(new LessonChangedEvent(1L, 10L));
+        cache.render(1L, 2, 2, content);
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().entries()).isEqualTo(1);
+    }
+}
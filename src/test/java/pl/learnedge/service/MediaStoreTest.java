@@ -0,0 +1,166 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.learnedge.dto.StoredMedia;
+import pl.learnedge.model.Course;
+import pl.learnedge.model.Lesson;
+import pl.learnedge.repository.CourseRepository;
+import pl.learnedge.repository.LessonRepository;
+import pl.learnedge.repository.MediaBlobRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class,
+        properties = {
+                "app.media.root=target/test-uploads",
+                "app.media.gc.grace-period=-PT1M"
+        })
+@Transactional
+class MediaStoreTest {
+
+    private static final byte[] CONTENT = "ten sam diagram".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired private MediaStore mediaStore;
+    @Autowired private MediaBlobRepository mediaBlobRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private LessonRepository lessonRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Test
+    void sameContentIsStoredOnceAcrossLessons() throws Exception {
+        Lesson first = createLesson("pierwsza");
+        Lesson second = createLesson("druga");
+
+        StoredMedia a = mediaStore.store(file("diagram.png"), "diagram.png");
+        mediaStore.attach(first.getId(), a);
+        StoredMedia b = mediaStore.store(file("kopia-diagramu.png"), "kopia-diagramu.png");
+        mediaStore.attach(second.getId(), b);
+
+        assertThat(b.hash()).isEqualTo(a.hash());
+        assertThat(b.url()).isEqualTo(a.url()).startsWith("/uploads/media/");
+        assertThat(Files.readString(a.path())).isEqualTo("ten sam diagram");
+        assertThat(mediaBlobRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void sweepRemovesBlobsNoLongerReferenced() {
+        Lesson lesson = createLesson("sprzatanie");
+        StoredMedia media = mediaStore.store(file("audio.mp3"), "audio.mp3");
+        mediaStore.attach(lesson.getId(), media);
+
+        mediaStore.sweep();
+        assertThat(Files.exists(media.path())).isTrue();
+
+        mediaStore.detachAll(lesson.getId());
+        mediaStore.sweep();
+
+        assertThat(Files.exists(media.path())).isFalse();
+        assertThat(mediaBlobRepository.existsById(media.hash())).isFalse();
+    }
+
+    @Test
+    void discardingADuplicateUploadKeepsTheRegisteredFile() throws Exception {
+        Lesson lesson = createLesson("duplikat");
+        StoredMedia media = mediaStore.store(file("slajd.png"), "slajd.png");
+        mediaStore.attach(lesson.getId(), media);
+
+        MediaStore.WrittenBlob duplicate = mediaStore.write(new ByteArrayInputStream(CONTENT), "slajd.png");
+        mediaStore.discard(duplicate);
+
+        assertThat(Files.exists(duplicate.temp())).isFalse();
+        assertThat(Files.readString(media.path())).isEqualTo("ten sam diagram");
+    }
+
+    @Test
+    void registerRestoresFileRemovedBySweep() throws Exception {
+        Lesson lesson = createLesson("wyscig");
+        StoredMedia media = mediaStore.store(file("wykres.png"), "wykres.png");
+
+        // Sprzątanie usuwa wiersz i plik; ponowny upload nie może polegać na tym, co było na dysku
+        mediaStore.sweep();
+        assertThat(Files.exists(media.path())).isFalse();
+        MediaStore.WrittenBlob written = mediaStore.write(new ByteArrayInputStream(CONTENT), "wykres.png");
+
+        StoredMedia registered = mediaStore.register(written);
+        mediaStore.attach(lesson.getId(), registered);
+
+        assertThat(registered.path()).isEqualTo(media.path());
+        assertThat(Files.readString(registered.path())).isEqualTo("ten sam diagram");
+        assertThat(mediaBlobRepository.existsById(registered.hash())).isTrue();
+        assertThat(Files.exists(written.temp())).isFalse();
+    }
+
+    // Bez transakcji testu: obie rejestracje zatwierdzają się naprawdę, każda w swoim wątku
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentRegistrationsOfNewContentBothSucceed() throws Exception {
+        byte[] content = "nowa treść wgrana dwa razy naraz".getBytes(StandardCharsets.UTF_8);
+        MediaStore.WrittenBlob first = mediaStore.write(new ByteArrayInputStream(content), "naraz.png");
+        MediaStore.WrittenBlob second = mediaStore.write(new ByteArrayInputStream(content), "naraz.png");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch firstRegistered = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<StoredMedia> a = executor.submit(() -> transactionTemplate.execute(status -> {
+                StoredMedia media = mediaStore.register(first);
+                firstRegistered.countDown();
+                try {
+                    releaseFirst.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return media;
+            }));
+            assertThat(firstRegistered.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<StoredMedia> b = executor.submit(() -> transactionTemplate.execute(status -> mediaStore.register(second)));
+            Thread.sleep(200);
+            releaseFirst.countDown();
+
+            StoredMedia registered = a.get(10, TimeUnit.SECONDS);
+            assertThat(b.get(10, TimeUnit.SECONDS).path()).isEqualTo(registered.path());
+            assertThat(Files.readString(registered.path())).isEqualTo("nowa treść wgrana dwa razy naraz");
+            assertThat(mediaBlobRepository.existsById(first.hash())).isTrue();
+        } finally {
+            releaseFirst.countDown();
+            executor.shutdownNow();
+            mediaBlobRepository.deleteById(first.hash());
+        }
+    }
+
+    private MockMultipartFile file(String name) {
+        return new MockMultipartFile("images", name, "image/png", CONTENT);
+    }
+
+    private Lesson createLesson(String slug) {
+        Course course = courseRepository.save(Course.builder()
+                .name("Kurs " + slug)
+                .description("Opis")
+                .difficulty("łatwy")
+                .slug("kurs-media-" + slug)
+                .build());
+        return lessonRepository.save(Lesson.builder()
+                .title("Lekcja " + slug)
+                .content("<p></p>")
+                .lessonOrder(1)
+                .slug("lekcja-media-" + slug)
+                .course(course)
+                .build());
+    }
+}
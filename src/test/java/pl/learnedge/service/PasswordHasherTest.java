@@ -0,0 +1,102 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import pl.learnedge.dto.PasswordHashingStats;
+import pl.learnedge.exception.PasswordHashingBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHasherTest {
+
+    @Test
+    void hashesOnThePoolAndRecordsLatency() {
+        PasswordHasher hasher = new PasswordHasher(4, 2, 8, Duration.ofSeconds(10));
+        try {
+            String hash = hasher.encode("tajne-haslo");
+
+            assertThat(hash).startsWith("$2a$04$");
+            assertThat(hasher.matches("tajne-haslo", hash)).isTrue();
+            assertThat(hasher.matches("inne-haslo", hash)).isFalse();
+            PasswordHashingStats stats = hasher.stats();
+            assertThat(stats.completed()).isEqualTo(3);
+            assertThat(stats.avgHashMillis()).isPositive();
+            assertThat(stats.maxHashMillis()).isGreaterThanOrEqualTo(stats.avgHashMillis());
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void hashesWithALowerCostAreUpgraded() {
+        PasswordHasher hasher = new PasswordHasher(5, 1, 8, Duration.ofSeconds(10));
+        try {
+            assertThat(hasher.upgradeEncoding(new BCryptPasswordEncoder(4).encode("haslo"))).isTrue();
+            assertThat(hasher.upgradeEncoding(new BCryptPasswordEncoder(5).encode("haslo"))).isFalse();
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueueIsRejectedImmediately() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(14, 1, 1, Duration.ofMinutes(1));
+        try {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("pierwsze"));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("drugie"));
+            while (hasher.stats().active() + hasher.stats().queued() < 2) {
+                Thread.sleep(1);
+            }
+
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> hasher.encode("trzecie")).isInstanceOf(PasswordHashingBusyException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+            assertThat(hasher.stats().rejected()).isEqualTo(1);
+            running.cancel(true);
+            queued.cancel(true);
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void waitingLongerThanMaxWaitFailsFast() {
+        PasswordHasher hasher = new PasswordHasher(14, 1, 8, Duration.ofMillis(10));
+        try {
+            assertThatThrownBy(() -> hasher.encode("haslo")).isInstanceOf(PasswordHashingBusyException.class);
+            assertThat(hasher.stats().timedOut()).isEqualTo(1);
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void timedOutTaskFreesItsPlaceInTheQueue() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(14, 1, 1, Duration.ofMillis(50));
+        try {
+            CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+                try {
+                    hasher.encode("pierwsze");
+                } catch (PasswordHashingBusyException ignored) {
+                    // Haszowanie trwa dalej na wątku puli
+                }
+            });
+            while (hasher.stats().active() < 1) {
+                Thread.sleep(1);
+            }
+
+            assertThatThrownBy(() -> hasher.encode("drugie")).isInstanceOf(PasswordHashingBusyException.class);
+            assertThat(hasher.stats().queued()).isZero();
+            assertThatThrownBy(() -> hasher.encode("trzecie")).isInstanceOf(PasswordHashingBusyException.class);
+            assertThat(hasher.stats().rejected()).isZero();
+            running.join();
+            assertThat(hasher.stats().timedOut()).isEqualTo(3);
+        } finally {
+            hasher.shutdown();
+        }
+    }
+}
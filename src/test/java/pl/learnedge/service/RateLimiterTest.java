@@ -0,0 +1,86 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.Test;
+import pl.learnedge.service.RateLimiter.Limit;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final RateLimiter rateLimiter = new RateLimiter();
+    private final Limit fivePerMinute = new Limit(5, Duration.ofMinutes(1));
+
+    @Test
+    void allowsTheWholeBurstAndThenReportsTheWait() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("login|ip|10.0.0.1", fivePerMinute, 0)).isZero();
+        }
+
+        assertThat(rateLimiter.tryAcquire("login|ip|10.0.0.1", fivePerMinute, 0)).isEqualTo(12 * SECOND);
+        assertThat(rateLimiter.tryAcquire("login|ip|10.0.0.1", fivePerMinute, 5 * SECOND)).isEqualTo(7 * SECOND);
+    }
+
+    @Test
+    void refillsOnePermitPerInterval() {
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire("key", fivePerMinute, 0);
+        }
+
+        assertThat(rateLimiter.tryAcquire("key", fivePerMinute, 12 * SECOND)).isZero();
+        assertThat(rateLimiter.tryAcquire("key", fivePerMinute, 12 * SECOND)).isPositive();
+        assertThat(rateLimiter.tryAcquire("key", fivePerMinute, 24 * SECOND)).isZero();
+    }
+
+    @Test
+    void waitTimeDoesNotConsumeAPermit() {
+        assertThat(rateLimiter.waitTime("key", fivePerMinute, 0)).isZero();
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.waitTime("key", fivePerMinute, 0)).isZero();
+            rateLimiter.tryAcquire("key", fivePerMinute, 0);
+        }
+
+        assertThat(rateLimiter.waitTime("key", fivePerMinute, 0)).isEqualTo(12 * SECOND);
+        assertThat(rateLimiter.waitTime("key", fivePerMinute, 0)).isEqualTo(12 * SECOND);
+        assertThat(rateLimiter.waitTime("key", fivePerMinute, 12 * SECOND)).isZero();
+        assertThat(rateLimiter.tryAcquire("key", fivePerMinute, 12 * SECOND)).isZero();
+    }
+
+    @Test
+    void keysAreIndependent() {
+        Limit onePerMinute = new Limit(1, Duration.ofMinutes(1));
+
+        assertThat(rateLimiter.tryAcquire("login|account|anna", onePerMinute, 0)).isZero();
+        assertThat(rateLimiter.tryAcquire("login|account|anna", onePerMinute, 0)).isPositive();
+        assertThat(rateLimiter.tryAcquire("login|account|jan", onePerMinute, 0)).isZero();
+    }
+
+    @Test
+    void evictsOnlyBucketsThatAreFullAgain() {
+        rateLimiter.tryAcquire("a", fivePerMinute, 0);
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire("b", fivePerMinute, 0);
+        }
+
+        rateLimiter.evictIdle(30 * SECOND);
+
+        assertThat(rateLimiter.size()).isEqualTo(1);
+        assertThat(rateLimiter.tryAcquire("b", fivePerMinute, 30 * SECOND)).isZero();
+        assertThat(rateLimiter.tryAcquire("b", fivePerMinute, 30 * SECOND)).isZero();
+        assertThat(rateLimiter.tryAcquire("b", fivePerMinute, 30 * SECOND)).isPositive();
+    }
+
+    @Test
+    void parsesLimitsFromConfiguration() {
+        assertThat(Limit.parse("20/PT1M")).isEqualTo(new Limit(20, Duration.ofMinutes(1)));
+        assertThat(Limit.parse(" 3 / PT1H ")).isEqualTo(new Limit(3, Duration.ofHours(1)));
+        assertThat(Limit.parse("")).isNull();
+        assertThat(Limit.parse(null)).isNull();
+        assertThatThrownBy(() -> Limit.parse("20")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Limit.parse("0/PT1M")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
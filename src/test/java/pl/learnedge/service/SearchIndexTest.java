@@ -0,0 +1,81 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.Test;
+import pl.learnedge.service.SearchIndex.Document;
+import pl.learnedge.service.SearchIndex.DocumentType;
+import pl.learnedge.service.SearchIndex.Field;
+import pl.learnedge.service.SearchIndex.Hit;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+
+    private final SearchIndex index = new SearchIndex();
+
+    @Test
+    void ranksTitleMatchesAboveBodyMatchesAndIgnoresDiacritics() {
+        put(DocumentType.COURSE, 1L, "Pętle w Pythonie", "Instrukcje while i for");
+        put(DocumentType.LESSON, 2L, "Listy", "Pętle przechodzą po elementach listy");
+
+        List<Hit> hits = index.search("petle", 10);
+
+        assertThat(hits).extracting(Hit::id).containsExactly(1L, 2L);
+        assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+    }
+
+    @Test
+    void expandsTheLastQueryTokenAsPrefix() {
+        put(DocumentType.LESSON, 1L, "Słowniki", "Klucze i wartości");
+        put(DocumentType.LESSON, 2L, "Zbiory", "Unikalne wartości");
+
+        assertThat(index.search("slow", 10)).extracting(Hit::id).containsExactly(1L);
+        assertThat(index.search("klucze wart", 10)).extracting(Hit::id).first().isEqualTo(1L);
+        assertThat(index.suggest("war", 5)).containsExactly("wartosci");
+    }
+
+    @Test
+    void removalDropsPostingsAndTermsOfTheDocument() {
+        put(DocumentType.COURSE, 1L, "Java", "Klasy i obiekty");
+        put(DocumentType.COURSE, 2L, "Python", "Klasy i moduły");
+        int termsWithBoth = index.termCount();
+
+        index.remove(DocumentType.COURSE, 1L);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.termCount()).isEqualTo(termsWithBoth - 2);
+        assertThat(index.search("java", 10)).isEmpty();
+        assertThat(index.search("klasy", 10)).extracting(Hit::id).containsExactly(2L);
+    }
+
+    @Test
+    void reindexingReplacesTheOldContent() {
+        put(DocumentType.LESSON, 1L, "Zmienne", "Typy proste");
+
+        put(DocumentType.LESSON, 1L, "Funkcje", "Parametry");
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("zmienne", 10)).isEmpty();
+        assertThat(index.search("funkcje", 10)).singleElement().extracting(Hit::title).isEqualTo("Funkcje");
+    }
+
+    @Test
+    void repeatedUpdatesDoNotGrowTheOrdinalSpace() {
+        put(DocumentType.COURSE, 1L, "Stały kurs", "Opis");
+        for (int i = 0; i < 1000; i++) {
+            put(DocumentType.LESSON, 2L, "Lekcja wersja " + i, "Treść " + i);
+        }
+
+        assertThat(index.ordinalCapacity()).isLessThanOrEqualTo(2 + 64);
+        assertThat(index.search("staly", 10)).extracting(Hit::id).containsExactly(1L);
+        assertThat(index.search("lekcja", 10)).singleElement().extracting(Hit::title).isEqualTo("Lekcja wersja 999");
+        assertThat(index.search("999", 10)).extracting(Hit::id).containsExactly(2L);
+        assertThat(index.search("998", 10)).isEmpty();
+    }
+
+    private void put(DocumentType type, Long id, String title, String body) {
+        index.put(new Document(type, id, title, "/" + id, null),
+                List.of(new Field(title, 2.0f), new Field(body, 1.0f)));
+    }
+}
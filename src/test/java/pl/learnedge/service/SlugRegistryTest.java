@@ -0,0 +1,81 @@
+package pl.learnedge.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
+import pl.learnedge.model.Course;
+import pl.learnedge.model.Lesson;
+import pl.learnedge.repository.LessonRepository;
+import pl.learnedge.support.TestData;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = pl.learnedge.LearnEdgeApplication.class)
+@Import(TestData.class)
+@Transactional
+class SlugRegistryTest {
+
+    @Autowired private SlugRegistry slugRegistry;
+    @Autowired private LessonRepository lessonRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private TestData testData;
+
+    @Test
+    void lessonSlugsAreResolvedWithinTheirCourse() {
+        Course first = testData.course("kurs-rejestr-a");
+        Course second = testData.course("kurs-rejestr-b");
+        Lesson firstLesson = testData.lesson(first, "wstep");
+        Lesson secondLesson = testData.lesson(second, "wstep");
+
+        assertThat(slugRegistry.findLessonId("kurs-rejestr-a", "wstep")).contains(firstLesson.getId());
+        assertThat(slugRegistry.findLessonId("kurs-rejestr-b", "wstep")).contains(secondLesson.getId());
+        assertThat(slugRegistry.findLessonId("kurs-rejestr-a", "brak")).isEmpty();
+        assertThat(slugRegistry.findLessonId("brak-kursu", "wstep")).isEmpty();
+    }
+
+    @Test
+    void reservedSlugsGetSuffixOnCollision() {
+        Course course = testData.course("kurs-rejestr-c");
+        testData.lesson(course, "wstep");
+
+        assertThat(slugRegistry.reserveCourseSlug("kurs-rejestr-c")).isEqualTo("kurs-rejestr-c-2");
+        assertThat(slugRegistry.reserveCourseSlug("kurs-rejestr-c")).isEqualTo("kurs-rejestr-c-3");
+        assertThat(slugRegistry.reserveCourseSlug("")).startsWith("kurs");
+
+        assertThat(slugRegistry.reserveLessonSlug(course.getId(), "wstep")).isEqualTo("wstep-2");
+        assertThat(slugRegistry.reserveLessonSlug(course.getId(), "podsumowanie")).isEqualTo("podsumowanie");
+    }
+
+    @Test
+    void lessonTitlesMayRepeatAcrossCourses() {
+        Lesson first = testData.lesson(testData.course("kurs-rejestr-d"), "wstep", "Wstęp");
+        Lesson second = testData.lesson(testData.course("kurs-rejestr-e"), "wstep", "Wstęp");
+        entityManager.flush();
+
+        assertThat(first.getId()).isNotEqualTo(second.getId());
+        assertThat(lessonRepository.findById(second.getId())).get().extracting(Lesson::getTitle).isEqualTo("Wstęp");
+    }
+
+    @Test
+    void lessonSlugIsUniqueWithinCourse() {
+        Course course = testData.course("kurs-rejestr-f");
+        Lesson existing = testData.lesson(course, "wstep");
+        entityManager.flush();
+
+        Lesson duplicate = Lesson.builder()
+                .title("Inny tytuł")
+                .content("<p></p>")
+                .lessonOrder(existing.getLessonOrder() + 1)
+                .slug("wstep")
+                .course(course)
+                .build();
+
+        assertThatThrownBy(() -> lessonRepository.saveAndFlush(duplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
@@ -0,0 +1,66 @@
+package pl.learnedge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.SoftAssertions.assertSoftly;
+
+class SlugServiceTest {
+
+    private final SlugService slugService = new SlugService();
+
+    @Test
+    void matchesGoldenFile() throws IOException {
+        String golden;
+        try (InputStream in = getClass().getResourceAsStream("/slugs/golden.tsv")) {
+            golden = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertSoftly(softly -> golden.lines()
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .forEach(line -> {
+                    String[] columns = line.split("\t", -1);
+                    softly.assertThat(slugService.generateSlug(columns[0])).as(columns[0]).isEqualTo(columns[1]);
+                }));
+    }
+
+    @Test
+    void matchesLegacyChainForPolishAndAsciiTitles() {
+        String alphabet = "abcXYZ09 -\t\n\u000B\f\rąćęłńóśźżĄĆĘŁŃÓŚŹŻ–—.,:;!?()/\"'#_&%²ªºİ K";
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder title = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                title.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertThat(slugService.generateSlug(title.toString()))
+                    .as(title.toString())
+                    .isEqualTo(legacySlug(title.toString()));
+        }
+    }
+
+    @Test
+    void boundsLengthWithoutTrailingSeparator() {
+        String slug = slugService.generateSlug("słowo ".repeat(100));
+
+        assertThat(slug).hasSizeLessThanOrEqualTo(SlugService.MAX_LENGTH).startsWith("slowo-").doesNotEndWith("-");
+        assertThat(slugService.generateSlug(null)).isEmpty();
+        assertThat(slugService.generateSlug("")).isEmpty();
+    }
+
+    // Dawna implementacja - punkt odniesienia dla zgodności
+    private static String legacySlug(String title) {
+        return title.toLowerCase()
+                .replaceAll("ą", "a").replaceAll("ć", "c").replaceAll("ę", "e")
+                .replaceAll("ł", "l").replaceAll("ń", "n").replaceAll("ó", "o")
+                .replaceAll("ś", "s").replaceAll("ź", "z").replaceAll("ż", "z")
+                .replaceAll("[^a-z0-9\\s-]", "")
+                .replaceAll("\\s+", "-")
+                .replaceAll("-{2,}", "-");
+    }
+}
@@ -0,0 +1,77 @@
+package pl.learnedge.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.test.context.TestComponent;
+import pl.learnedge.model.*;
+import pl.learnedge.repository.*;
+import pl.learnedge.service.LessonOrderingService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Wspólne dane testów integracyjnych (@Import(TestData.class)). Nazwy, tytuły i slugi dostają numer
+// kolejny, więc nie łamią unikalnych ograniczeń; lekcje dostają rangę na końcu kursu i zwiększają lessonCount.
+@TestComponent
+@RequiredArgsConstructor
+public class TestData {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final UserRepository userRepository;
+    private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+    private final UserCourseRepository userCourseRepository;
+    private final LessonOrderingService lessonOrderingService;
+
+    public User user() {
+        int n = SEQUENCE.incrementAndGet();
+        return userRepository.save(User.builder()
+                .username("uzytkownik-testowy-" + n)
+                .email("uzytkownik-testowy-" + n + "@example.com")
+                .password("secret")
+                .role("ROLE_USER")
+                .enabled(true)
+                .build());
+    }
+
+    public Course course() {
+        return course("kurs-testowy-" + SEQUENCE.incrementAndGet());
+    }
+
+    public Course course(String slug) {
+        return courseRepository.save(Course.builder()
+                .name("Kurs " + slug)
+                .description("Opis kursu " + slug)
+                .difficulty("łatwy")
+                .slug(slug)
+                .build());
+    }
+
+    public Lesson lesson(Course course) {
+        return lesson(course, "lekcja-" + SEQUENCE.incrementAndGet());
+    }
+
+    public Lesson lesson(Course course, String slug) {
+        return lesson(course, slug, "Lekcja " + slug + " " + SEQUENCE.incrementAndGet());
+    }
+
+    public Lesson lesson(Course course, String slug, String title) {
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title(title)
+                .content("<p>Treść lekcji</p>")
+                .lessonOrder(lessonOrderingService.allocateLastRank(course.getId()))
+                .slug(slug)
+                .course(course)
+                .build());
+        course.setLessonCount(course.getLessonCount() + 1);
+        courseRepository.save(course);
+        return lesson;
+    }
+
+    public UserCourse enroll(User user, Course course) {
+        return userCourseRepository.save(UserCourse.builder()
+                .user(user)
+                .course(course)
+                .progress(0)
+                .build());
+    }
+}
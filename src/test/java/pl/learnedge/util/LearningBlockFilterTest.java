@@ -0,0 +1,39 @@
+package pl.learnedge.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LearningBlockFilterTest {
+
+    private static final String LESSON = """
+            <div data-learning="0"><p>Dla wszystkich</p></div>\
+            <div data-learning="1"><div>Słuchowiec<div>zagnieżdżony</div></div><audio src="a.mp3"></audio></div>\
+            <img src="b.png" data-learning=2>\
+            <div data-learning='1,3'>Ćwiczenie</div>\
+            <p>Koniec</p>""";
+
+    @Test
+    void keepsBlocksForAllStylesAndTheUsersStyle() {
+        assertThat(LearningBlockFilter.filter(LESSON, 3)).isEqualTo(
+                "<div data-learning=\"0\"><p>Dla wszystkich</p></div>"
+                        + "<div data-learning='1,3'>Ćwiczenie</div>"
+                        + "<p>Koniec</p>");
+    }
+
+    @Test
+    void removesNestedBlocksAndVoidElementsOfOtherStyles() {
+        String visual = LearningBlockFilter.filter(LESSON, 2);
+
+        assertThat(visual).contains("<img src=\"b.png\" data-learning=2>");
+        assertThat(visual).doesNotContain("Słuchowiec", "zagnieżdżony", "a.mp3", "Ćwiczenie");
+        assertThat(visual).endsWith("<p>Koniec</p>");
+    }
+
+    @Test
+    void returnsContentWithoutLearningBlocksUnchanged() {
+        String html = "<p>Bez bloków</p>";
+
+        assertThat(LearningBlockFilter.filter(html, 1)).isSameAs(html);
+    }
+}
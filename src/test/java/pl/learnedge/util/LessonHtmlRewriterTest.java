@@ -0,0 +1,113 @@
+package pl.learnedge.util;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LessonHtmlRewriterTest {
+
+    @Test
+    void resolvesUploadedFilesAndAddsSrcsetToImages() {
+        String html = """
+                <div class="course-image-container" data-learning="2"><img src="abc-kot.png" alt="kot"></div>\
+                <audio controls><source src="xyz-nagranie.mp3" type="audio/mpeg" /></audio>""";
+        Map<String, LessonHtmlRewriter.Asset> assets = Map.of(
+                "abc-kot.png", new LessonHtmlRewriter.Asset("/uploads/media/ab/ab12.png", "/uploads/media/ab/ab12-w480.png 480w", "100vw"),
+                "xyz-nagranie.mp3", new LessonHtmlRewriter.Asset("/uploads/media/cd/cd34.mp3"));
+
+        assertThat(LessonHtmlRewriter.rewrite(html, assets)).isEqualTo(
+                "<div class=\"course-image-container\" data-learning=\"2\">"
+                        + "<img src=\"/uploads/media/ab/ab12.png\" alt=\"kot\" srcset=\"/uploads/media/ab/ab12-w480.png 480w\" sizes=\"100vw\"></div>"
+                        + "<audio controls=\"\"><source src=\"/uploads/media/cd/cd34.mp3\" type=\"audio/mpeg\"></audio>");
+    }
+
+    @Test
+    void stripsUnresolvedBlobSources() {
+        String html = "<img src=\"blob:http://localhost:8080/1f2e\" alt=\"podgląd\">";
+
+        assertThat(LessonHtmlRewriter.rewrite(html, Map.of())).isEqualTo("<img alt=\"podgląd\">");
+    }
+
+    @Test
+    void normalizesTagsAndAttributes() {
+        String html = "<P CLASS=lead data-answer='powiedział \"tak\"' class=\"x\">Tekst &amp; <b>więcej</B> a < b</P><!-- uwaga -->";
+
+        assertThat(LessonHtmlRewriter.rewrite(html, Map.of())).isEqualTo(
+                "<p class=\"lead\" data-answer=\"powiedział &quot;tak&quot;\">Tekst &amp; <b>więcej</b> a &lt; b</p>");
+    }
+
+    @Test
+    void removesScriptsHandlersAndDangerousUrls() {
+        String html = """
+                <p onmouseover="alert(1)">A</p><SCRIPT>alert('<p>')</script>\
+                <a href=" javascript:alert(1)">B</a>\
+                <button class="course-copy-btn" onclick="copyCode(this)">Kopiuj</button>\
+                <iframe src="https://www.youtube.com/embed/abc" allowfullscreen></iframe>""";
+
+        assertThat(LessonHtmlRewriter.rewrite(html, Map.of())).isEqualTo(
+                "<p>A</p><a>B</a>"
+                        + "<button class=\"course-copy-btn\" onclick=\"copyCode(this)\">Kopiuj</button>"
+                        + "<iframe src=\"https://www.youtube.com/embed/abc\" allowfullscreen></iframe>");
+    }
+
+    @Test
+    void replacesAnyOtherClickHandlerOnTheCopyButton() {
+        String html = "<button class=\"course-copy-btn\" onclick=\"fetch('/api/admin')\">Kopiuj</button>";
+
+        assertThat(LessonHtmlRewriter.rewrite(html, Map.of()))
+                .isEqualTo("<button class=\"course-copy-btn\" onclick=\"copyCode(this)\">Kopiuj</button>");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<a href=\"javascript&#58;alert(1)\">x</a>",
+            "<a href=\"&#x6A;avascript:alert(1)\">x</a>",
+            "<a href=\"java&#x09;script:alert(1)\">x</a>",
+            "<a href=\"JaVaScRiPt:alert(1)\">x</a>",
+            "<img src=\"x\" onerror=\"alert(1)\">",
+            "<iframe srcdoc=\"&lt;script&gt;alert(1)&lt;/script&gt;\"></iframe>",
+            "<iframe src=\"data:text/html,&lt;script&gt;alert(1)&lt;/script&gt;\"></iframe>",
+            "<svg><a xlink:href=\"javascript:alert(1)\"><text>x</text></a></svg>",
+            "<object data=\"javascript:alert(1)\"></object>",
+            "<embed src=\"javascript:alert(1)\">",
+            "<meta http-equiv=\"refresh\" content=\"0;url=javascript:alert(1)\">",
+            "<video poster=\"javascript:alert(1)\"></video>",
+            "<form action=\"javascript:alert(1)\"><button formaction=\"javascript:alert(1)\">x</button></form>",
+            "<p style=\"background:url(javascript:alert(1))\">x</p>",
+            "<style>*{background:url(\"javascript:alert(1)\")}</style>",
+            "<textarea><p title=\"</textarea><img src=x onerror=alert(1)>\"></textarea>",
+            "<style><p title=\"</style><img src=x onerror=alert(1)>\"></style>",
+            "<noscript><p title=\"</noscript><img src=x onerror=alert(1)>\"></noscript>",
+            "<math><mi xlink:href=\"javascript:alert(1)\">x</mi></math>"
+    })
+    void neutralizesBypassPayloads(String payload) {
+        String result = LessonHtmlRewriter.rewrite("<div>" + payload + "</div>", Map.of());
+
+        // Sprawdzamy to, co zbuduje przeglądarka z wyniku, a nie sam tekst
+        for (Element element : Jsoup.parseBodyFragment(result).body().getAllElements()) {
+            assertThat(element.normalName()).isNotIn(
+                    "script", "style", "textarea", "noscript", "object", "embed", "meta", "svg", "math", "form");
+            for (Attribute attribute : element.attributes()) {
+                String value = attribute.getValue().replaceAll("\\s", "").toLowerCase();
+                assertThat(attribute.getKey()).doesNotStartWith("on").isNotIn("srcdoc", "style", "formaction", "action")
+                        .doesNotContain(":");
+                assertThat(value).doesNotContain("javascript:").doesNotStartWith("data:");
+            }
+        }
+    }
+
+    @Test
+    void keepsRawTextElementContentAsEscapedText() {
+        String html = "<textarea><p title=\"</textarea><img src=x onerror=alert(1)>\"></textarea>";
+
+        // Przeglądarka kończy textarea na pierwszym </textarea>, więc <img> jest prawdziwym tagiem - bez onerror
+        assertThat(LessonHtmlRewriter.rewrite(html, Map.of())).isEqualTo("&lt;p title=\"<img src=\"x\">\"&gt;");
+    }
+}
@@ -0,0 +1,29 @@
+package pl.learnedge.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchTextTest {
+
+    @Test
+    void normalizesPolishLettersIncludingLStroke() {
+        assertThat(TextNormalizer.normalize("Źdźbło ŁĄKI")).isEqualTo("zdzblo laki");
+        assertThat(TextNormalizer.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void tokenizeDropsStopWordsAndShortTokens() {
+        assertThat(SearchText.tokenize("Pętle w Pythonie i listy, x"))
+                .containsExactly("petle", "pythonie", "listy");
+    }
+
+    @Test
+    void stripTagsRemovesMarkupScriptsAndDecodesEntities() {
+        String html = "<h1>Tytuł</h1><script>alert('x')</script><p>A &amp; B</p><STYLE>p{}</STYLE>koniec";
+
+        assertThat(SearchText.tokenize(SearchText.stripTags(html)))
+                .containsExactly("tytul", "koniec");
+        assertThat(SearchText.stripTags("<p>A &amp; B</p>")).contains("A & B");
+    }
+}